@@ -0,0 +1,21 @@
+package top.kidhx.apidoc.benchmark;
+
+import com.google.common.collect.ImmutableMap;
+import top.kidhx.apidoc.exporter.DocExporter;
+import top.kidhx.apidoc.exporter.DocExporterProvider;
+
+import java.util.Map;
+
+/**
+ * registers {@link DiscardDocExporter} for the benchmarks
+ *
+ * @author HX
+ * @date 2022/2/22
+ */
+public class BenchmarkDocExporterProvider implements DocExporterProvider {
+
+    @Override
+    public Map<String, Class<? extends DocExporter>> getExporters() {
+        return ImmutableMap.of(DiscardDocExporter.NAME, DiscardDocExporter.class);
+    }
+}
@@ -0,0 +1,44 @@
+package top.kidhx.apidoc.benchmark;
+
+import top.kidhx.apidoc.bo.MarkDownApi;
+import top.kidhx.apidoc.exporter.DocWriter;
+import top.kidhx.apidoc.exporter.PartitionedDocExporter;
+import top.kidhx.apidoc.exporter.StreamingDocExporter;
+
+import java.util.List;
+
+/**
+ * streaming exporter that drops the rendered docs, isolates rendering from file io
+ *
+ * @author HX
+ * @date 2022/2/22
+ */
+public class DiscardDocExporter implements StreamingDocExporter, PartitionedDocExporter {
+
+    public static final String NAME = "discard";
+
+    @Override
+    public void exportApiDoc(List<MarkDownApi> apiDocs) {
+    }
+
+    @Override
+    public DocWriter openApiDoc(MarkDownApi apiDoc) {
+        return new DocWriter() {
+            @Override
+            public void write(char[] cbuf, int off, int len) {
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void abort() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
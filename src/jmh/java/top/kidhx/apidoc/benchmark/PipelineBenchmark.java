@@ -0,0 +1,179 @@
+package top.kidhx.apidoc.benchmark;
+
+import com.google.common.collect.Lists;
+import org.apache.maven.plugin.logging.Log;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import top.kidhx.apidoc.apiwriter.ApiDocGenerator;
+import top.kidhx.apidoc.apiwriter.Mocker;
+import top.kidhx.apidoc.bo.Api;
+import top.kidhx.apidoc.bo.ClassMeta;
+import top.kidhx.apidoc.bo.ExporterDefinition;
+import top.kidhx.apidoc.bo.enums.ClassInfoReaderType;
+import top.kidhx.apidoc.bo.enums.CommentType;
+import top.kidhx.apidoc.sourcehandler.AbstractClassMetaReader;
+import top.kidhx.apidoc.sourcehandler.ClassMetaReaderFactory;
+import top.kidhx.apidoc.sourcehandler.ClassScanner;
+import top.kidhx.apidoc.sourcehandler.SourceCodeReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * scan → meta → render → export, each stage on its own and end to end, over a generated project of
+ * controllers × endpoints with dtos nested depth levels deep. every invocation starts cold: a fresh class loader,
+ * reader, source cache and mocker, so memoized state of one invocation does not leak into the next
+ *
+ * @author HX
+ * @date 2022/2/22
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"10"})
+    public int controllers;
+
+    @Param({"10"})
+    public int endpoints;
+
+    @Param({"3"})
+    public int depth;
+
+    @Param({"1"})
+    public int threads;
+
+    private final Log log = new SilentLog();
+    private File root;
+    private SyntheticProject project;
+    private URLClassLoader loader;
+    private List<Class<?>> classes;
+    private List<ClassMeta> classMetas;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("api-doc-bench").toFile();
+        project = SyntheticProject.generate(root, controllers, endpoints, depth);
+        loader = project.newClassLoader();
+        classes = scan(loader);
+        classMetas = newReader(loader).getClassMetas(classes, project.getSourceDirectory().getAbsolutePath(), loader, threads);
+        if (classMetas.size() != controllers) {
+            throw new IllegalStateException("expected " + controllers + " controllers, read " + classMetas.size());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        loader.close();
+        Files.walkFileTree(root.toPath(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * directory walk, class header filtering and class loading
+     */
+    @Benchmark
+    public List<Class<?>> loadClass() throws Exception {
+        try (URLClassLoader classLoader = project.newClassLoader()) {
+            return scan(classLoader);
+        }
+    }
+
+    /**
+     * reflection, generic resolution, cycle checks and comment parsing of the scanned controllers
+     */
+    @Benchmark
+    public List<ClassMeta> getClassMetas() throws Exception {
+        return newReader(loader).getClassMetas(classes, project.getSourceDirectory().getAbsolutePath(), loader, threads);
+    }
+
+    /**
+     * java parsing of every source file with a cold cache
+     */
+    @Benchmark
+    public void resolveComment(Blackhole blackhole) throws Exception {
+        final SourceCodeReader sourceCodeReader = new SourceCodeReader();
+        for (File sourceFile : project.getSourceFiles()) {
+            blackhole.consume(sourceCodeReader.resolveComment(sourceFile, CommentType.FIELD));
+        }
+    }
+
+    /**
+     * markdown rendering and mocking of read class metas, docs are discarded
+     */
+    @Benchmark
+    public void generateApiDoc() throws Exception {
+        newGenerator().generateApiDoc(classMetas);
+    }
+
+    /**
+     * json examples of every endpoint with a cold mocker
+     */
+    @Benchmark
+    public int mock() throws Exception {
+        final Mocker mocker = new Mocker(loader);
+        final StringBuilder out = new StringBuilder();
+        for (ClassMeta classMeta : classMetas) {
+            for (Api api : classMeta.getApis()) {
+                mocker.mock(api.getReturnValue(), out);
+            }
+        }
+        return out.length();
+    }
+
+    /**
+     * what the mojo does, export to discarding sinks
+     */
+    @Benchmark
+    public void endToEnd() throws Exception {
+        try (URLClassLoader classLoader = project.newClassLoader()) {
+            final List<ClassMeta> metas = newReader(classLoader)
+                    .getClassMetas(scan(classLoader), project.getSourceDirectory().getAbsolutePath(), classLoader, threads);
+            new ApiDocGenerator(log, exporters(), classLoader, threads).generateApiDoc(metas);
+        }
+    }
+
+    private List<Class<?>> scan(ClassLoader classLoader) throws Exception {
+        final Set<Class<?>> scanned = new ClassScanner(log).loadClass(project.getOutputDirectory().getAbsolutePath(), project.getPackagePath(),
+                ClassInfoReaderType.SPRING_CONTROLLER, classLoader);
+        return scanned.stream().sorted(Comparator.comparing(Class::getName)).collect(Collectors.toList());
+    }
+
+    private AbstractClassMetaReader newReader(ClassLoader classLoader) {
+        return ClassMetaReaderFactory.createClassReader(ClassInfoReaderType.SPRING_CONTROLLER, project.getMavenProject(), log, classLoader);
+    }
+
+    private ApiDocGenerator newGenerator() {
+        return new ApiDocGenerator(log, exporters(), loader, threads);
+    }
+
+    private List<ExporterDefinition> exporters() {
+        return Lists.newArrayList(new ExporterDefinition().setExporterName(DiscardDocExporter.NAME));
+    }
+}
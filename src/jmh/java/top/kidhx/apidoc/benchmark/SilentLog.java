@@ -0,0 +1,84 @@
+package top.kidhx.apidoc.benchmark;
+
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * drops everything but errors, so logging does not dominate the measured time
+ *
+ * @author HX
+ * @date 2022/2/22
+ */
+public class SilentLog implements Log {
+
+    @Override
+    public boolean isDebugEnabled() {
+        return false;
+    }
+
+    @Override
+    public void debug(CharSequence content) {
+    }
+
+    @Override
+    public void debug(CharSequence content, Throwable error) {
+    }
+
+    @Override
+    public void debug(Throwable error) {
+    }
+
+    @Override
+    public boolean isInfoEnabled() {
+        return false;
+    }
+
+    @Override
+    public void info(CharSequence content) {
+    }
+
+    @Override
+    public void info(CharSequence content, Throwable error) {
+    }
+
+    @Override
+    public void info(Throwable error) {
+    }
+
+    @Override
+    public boolean isWarnEnabled() {
+        return false;
+    }
+
+    @Override
+    public void warn(CharSequence content) {
+    }
+
+    @Override
+    public void warn(CharSequence content, Throwable error) {
+    }
+
+    @Override
+    public void warn(Throwable error) {
+    }
+
+    @Override
+    public boolean isErrorEnabled() {
+        return true;
+    }
+
+    @Override
+    public void error(CharSequence content) {
+        System.err.println("[ERROR] " + content);
+    }
+
+    @Override
+    public void error(CharSequence content, Throwable error) {
+        error(content);
+        error.printStackTrace();
+    }
+
+    @Override
+    public void error(Throwable error) {
+        error.printStackTrace();
+    }
+}
@@ -0,0 +1,195 @@
+package top.kidhx.apidoc.benchmark;
+
+import com.google.common.collect.Lists;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.project.MavenProject;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * generates and compiles a spring controller project laid out like a maven module (src/main/java, target/classes):
+ * controllers × endpoints, each endpoint returns Result&lt;Page&lt;Dto&gt;&gt; and takes the dto as body. dtos are nested
+ * depth levels deep through List, Map and the generic Page, every level points back to the top level dto,
+ * so generics and cycle references are both exercised. every class, field, method and enum constant is commented
+ *
+ * @author HX
+ * @date 2022/2/22
+ */
+public class SyntheticProject {
+
+    public static final String PACKAGE_NAME = "bench.api";
+    public static final String ARTIFACT_ID = "synthetic-api";
+
+    private final File root;
+    private final int controllers;
+    private final int endpoints;
+    private final int depth;
+    private final List<File> sourceFiles = Lists.newArrayList();
+
+    private SyntheticProject(File root, int controllers, int endpoints, int depth) {
+        this.root = root;
+        this.controllers = controllers;
+        this.endpoints = endpoints;
+        this.depth = depth;
+    }
+
+    public static SyntheticProject generate(File root, int controllers, int endpoints, int depth) throws IOException {
+        final SyntheticProject project = new SyntheticProject(root, controllers, endpoints, depth);
+        project.writeSources();
+        project.compile();
+        return project;
+    }
+
+    /**
+     * project build directory, what the mojo gets as outputDirectory
+     */
+    public File getOutputDirectory() {
+        return new File(root, "target");
+    }
+
+    public File getClassesDirectory() {
+        return new File(getOutputDirectory(), "classes");
+    }
+
+    public File getSourceDirectory() {
+        return new File(root, "src" + File.separator + "main" + File.separator + "java");
+    }
+
+    public List<File> getSourceFiles() {
+        return sourceFiles;
+    }
+
+    /**
+     * package path as the mojo passes it to the class scanner
+     */
+    public String getPackagePath() {
+        return String.join(File.separator, PACKAGE_NAME.split("\\."));
+    }
+
+    public MavenProject getMavenProject() {
+        final MavenProject mavenProject = new MavenProject();
+        mavenProject.setGroupId("bench");
+        mavenProject.setArtifactId(ARTIFACT_ID);
+        mavenProject.setVersion("1.0");
+        mavenProject.setArtifact(new DefaultArtifact("bench", ARTIFACT_ID, "1.0", "compile", "jar", null, new DefaultArtifactHandler("jar")));
+        return mavenProject;
+    }
+
+    /**
+     * a fresh loader of the compiled classes. the parent hides class path roots from getResource(""),
+     * like the plugin realm does, so sources are resolved against this project and not the benchmark class path
+     */
+    public URLClassLoader newClassLoader() throws IOException {
+        final ClassLoader parent = new ClassLoader(SyntheticProject.class.getClassLoader()) {
+            @Override
+            public URL getResource(String name) {
+                return name.isEmpty() || "/".equals(name) ? null : super.getResource(name);
+            }
+        };
+        return new URLClassLoader(new URL[]{getClassesDirectory().toURI().toURL()}, parent);
+    }
+
+    private void writeSources() throws IOException {
+        write("Status", "/**\n * record status\n */\npublic enum Status {\n"
+                + "    /**\n     * in use\n     */\n    ACTIVE,\n"
+                + "    /**\n     * disabled by admin\n     */\n    DISABLED\n}\n");
+        write("BaseDto", "/**\n * fields shared by all dtos\n */\npublic class BaseDto {\n"
+                + field("optimistic lock version", "long", "version")
+                + field("last modified time", "java.util.Date", "modifiedAt")
+                + "}\n");
+        write("Page", "import java.util.List;\n\n/**\n * one page of records\n */\npublic class Page<T> {\n"
+                + field("records of the page", "List<T>", "items")
+                + field("first record", "T", "first")
+                + field("total records", "long", "total")
+                + "}\n");
+        write("Result", "/**\n * response wrapper\n */\npublic class Result<T> {\n"
+                + field("response code, 0 is success", "int", "code")
+                + field("error message", "String", "message")
+                + field("response data", "T", "data")
+                + "}\n");
+        for (int c = 0; c < controllers; c++) {
+            for (int d = 0; d <= depth; d++) {
+                writeDto(c, d);
+            }
+            writeController(c);
+        }
+    }
+
+    private void writeDto(int controller, int level) throws IOException {
+        final String name = dtoName(controller, level);
+        final StringBuilder builder = new StringBuilder("import java.util.List;\nimport java.util.Map;\n\n")
+                .append("/**\n * dto ").append(level).append(" of controller ").append(controller).append("\n */\n")
+                .append("public class ").append(name).append(" extends BaseDto {\n")
+                .append(field("record id", "Long", "id"))
+                .append(field("display name", "String", "name"))
+                .append(field("score of the record", "double", "score"))
+                .append(field("record status", "Status", "status"))
+                .append(field("tags of the record", "List<String>", "tags"))
+                .append(field("top level record, cycle reference", dtoName(controller, 0), "root"));
+        if (level < depth) {
+            final String child = dtoName(controller, level + 1);
+            builder.append(field("child records", "List<" + child + ">", "children"))
+                    .append(field("child records by name", "Map<String, " + child + ">", "index"))
+                    .append(field("paged child records", "Page<" + child + ">", "page"));
+        }
+        write(name, builder.append("}\n").toString());
+    }
+
+    private void writeController(int controller) throws IOException {
+        final String dto = dtoName(controller, 0);
+        final StringBuilder builder = new StringBuilder("import org.springframework.web.bind.annotation.*;\n\n")
+                .append("/**\n * controller ").append(controller).append("\n */\n")
+                .append("@RestController\n@RequestMapping(\"/c").append(controller).append("\")\n")
+                .append("public class Controller").append(controller).append(" {\n");
+        for (int e = 0; e < endpoints; e++) {
+            builder.append("\n    /**\n     * endpoint ").append(e).append(" of controller ").append(controller).append("\n")
+                    .append("     * @param id record id\n     * @param body record\n     * @return paged records\n     */\n")
+                    .append(e % 2 == 0 ? "    @GetMapping" : "    @PostMapping").append("(\"/e").append(e).append("\")\n")
+                    .append("    public Result<Page<").append(dto).append(">> endpoint").append(e)
+                    .append("(@RequestParam(\"id\") Long id, @RequestBody ").append(dto).append(" body) {\n")
+                    .append("        return null;\n    }\n");
+        }
+        write("Controller" + controller, builder.append("}\n").toString());
+    }
+
+    private static String dtoName(int controller, int level) {
+        return "Dto" + controller + "L" + level;
+    }
+
+    private static String field(String comment, String type, String name) {
+        return "    /**\n     * " + comment + "\n     */\n    private " + type + " " + name + ";\n";
+    }
+
+    private void write(String className, String body) throws IOException {
+        final Path file = getSourceDirectory().toPath().resolve(getPackagePath()).resolve(className + ".java");
+        Files.createDirectories(file.getParent());
+        Files.write(file, ("package " + PACKAGE_NAME + ";\n\n" + body).getBytes(StandardCharsets.UTF_8));
+        sourceFiles.add(file.toFile());
+    }
+
+    private void compile() throws IOException {
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("benchmarks need a jdk, no system java compiler found");
+        }
+        Files.createDirectories(getClassesDirectory().toPath());
+        final List<String> arguments = Lists.newArrayList("-parameters", "-g", "-proc:none", "-encoding", "UTF-8",
+                "-classpath", System.getProperty("java.class.path"), "-d", getClassesDirectory().getAbsolutePath());
+        for (File sourceFile : sourceFiles) {
+            arguments.add(sourceFile.getAbsolutePath());
+        }
+        if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("synthetic project compile failed:" + root);
+        }
+    }
+}
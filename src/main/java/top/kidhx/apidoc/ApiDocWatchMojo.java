@@ -0,0 +1,236 @@
+package top.kidhx.apidoc;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.*;
+import top.kidhx.apidoc.apiwriter.ApiDocGenerator;
+import top.kidhx.apidoc.bo.Api;
+import top.kidhx.apidoc.bo.ClassMeta;
+import top.kidhx.apidoc.bo.ExporterDefinition;
+import top.kidhx.apidoc.bo.FieldMeta;
+import top.kidhx.apidoc.exporter.ExporterEngine;
+import top.kidhx.apidoc.sourcehandler.ChangeWatcher;
+import top.kidhx.apidoc.sourcehandler.ClassScanner;
+import top.kidhx.apidoc.sourcehandler.ProjectClassLoaderFactory;
+
+import java.io.File;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * generate api docs once, then keep class metas, parsed comments and the dependency class loader warm,
+ * watch target/classes and the source folder, and regenerate only docs of controllers whose classes or
+ * referenced types changed. changed classes are loaded through a fresh loader of project classes. stop with ctrl+c
+ *
+ * @author HX
+ * @date 2022/2/23
+ */
+@Mojo(name = "watch-api-doc", requiresDependencyResolution = ResolutionScope.TEST)
+@Execute(phase = LifecyclePhase.COMPILE)
+public class ApiDocWatchMojo extends ApiGeneratorMojo {
+
+    private static final String CLASS_POSTFIX = ".class";
+    private static final String SOURCE_POSTFIX = ".java";
+
+    /**
+     * milliseconds without file changes closing a batch of changes, so one compile triggers one refresh
+     */
+    @Parameter(defaultValue = "300")
+    private long quietMillis;
+
+    /**
+     * documented class name -> class meta, sorted by class name. metas of unaffected classes are kept across
+     * refreshes, the classes they hold keep the class loaders of earlier refreshes reachable until they are read again
+     */
+    private final Map<String, ClassMeta> classMetas = Maps.newTreeMap();
+    /**
+     * documented class name -> names of the class and all types it references
+     */
+    private final Map<String, Set<String>> references = Maps.newHashMap();
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        init();
+        warnPartialExporters();
+        final File classesDir = ClassScanner.getClassesDir(outputDirectory.getAbsolutePath());
+        try (ChangeWatcher watcher = new ChangeWatcher(log, Lists.newArrayList(classesDir.toPath(), sourceDirectory.toPath()))) {
+            refresh(urlClassLoader, null);
+            log.info("watching " + classesDir + " and " + sourceDirectory + " for changes, ctrl+c to stop");
+            // changed classes of a failed refresh, retried with the next change. null refreshes all
+            Set<String> failedClasses = Collections.emptySet();
+            while (!Thread.currentThread().isInterrupted()) {
+                final Set<Path> changedFiles = watcher.take(quietMillis);
+                final Set<String> changedClasses = merge(toClassNames(changedFiles, classesDir.toPath()), failedClasses);
+                if (changedClasses != null && changedClasses.isEmpty()) {
+                    continue;
+                }
+                final URLClassLoader previousLoader = urlClassLoader;
+                urlClassLoader = ProjectClassLoaderFactory.create(session, mavenProject, classesDir, this.getClass().getClassLoader(), log);
+                try {
+                    refresh(urlClassLoader, changedClasses);
+                    failedClasses = Collections.emptySet();
+                } catch (Exception e) {
+                    failedClasses = changedClasses;
+                    log.error("api doc refresh failed, retried with the next change", e);
+                }
+                ProjectClassLoaderFactory.close(previousLoader, log);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("api doc watch stopped");
+        } catch (Exception e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        } finally {
+            ProjectClassLoaderFactory.close(urlClassLoader, log);
+        }
+    }
+
+    /**
+     * read and render controllers affected by the changed classes
+     *
+     * @param classLoader    fresh loader of project classes
+     * @param changedClasses changed class names, null to refresh all
+     */
+    private void refresh(URLClassLoader classLoader, Set<String> changedClasses) throws Exception {
+        final long start = System.nanoTime();
+        final List<Class<?>> scanned = scanClasses(classLoader);
+        final Set<String> scannedNames = Sets.newHashSet();
+        final List<Class<?>> affected = Lists.newArrayList();
+        for (Class<?> aClass : scanned) {
+            scannedNames.add(aClass.getName());
+            if (changedClasses == null || !classMetas.containsKey(aClass.getName()) || isAffected(references.get(aClass.getName()), changedClasses)) {
+                affected.add(aClass);
+            }
+        }
+        final List<String> removed = Lists.newArrayList();
+        for (Iterator<String> iterator = classMetas.keySet().iterator(); iterator.hasNext(); ) {
+            final String className = iterator.next();
+            if (!scannedNames.contains(className)) {
+                iterator.remove();
+                references.remove(className);
+                removed.add(className);
+            }
+        }
+        if (!removed.isEmpty()) {
+            log.warn("classes no longer documented, their exported docs are kept:" + removed);
+        }
+        if (affected.isEmpty()) {
+            log.info("no api doc affected by changes");
+            return;
+        }
+
+        classMetaReader.reset(classLoader);
+        final List<ClassMeta> refreshed = classMetaReader.getClassMetas(affected, sourceDirectory.getAbsolutePath(), classLoader, threads);
+        for (ClassMeta classMeta : refreshed) {
+            classMetas.put(classMeta.getClassName(), classMeta);
+            final Set<String> names = Sets.newHashSet();
+            collectTypeNames(classMeta, names, Collections.newSetFromMap(new IdentityHashMap<>()));
+            references.put(classMeta.getClassName(), names);
+        }
+        new ApiDocGenerator(log, exporters, classLoader, threads, mockLimits).generateApiDoc(refreshed);
+        log.info("api doc refreshed in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + "ms, "
+                + refreshed.size() + " of " + classMetas.size() + " docs regenerated");
+    }
+
+    private boolean isAffected(Set<String> referencedNames, Set<String> changedClasses) {
+        if (referencedNames == null) {
+            return true;
+        }
+        for (String referencedName : referencedNames) {
+            final int nested = referencedName.indexOf('$');
+            if (changedClasses.contains(referencedName) || nested > 0 && changedClasses.contains(referencedName.substring(0, nested))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * class names of changed .class and .java files, null when a directory changed or events were lost
+     */
+    private Set<String> toClassNames(Set<Path> changedFiles, Path classesRoot) {
+        final Path sourceRoot = sourceDirectory.toPath();
+        final Set<String> classNames = Sets.newHashSet();
+        for (Path changedFile : changedFiles) {
+            final String fileName = changedFile.getFileName().toString();
+            if (fileName.endsWith(CLASS_POSTFIX) && changedFile.startsWith(classesRoot)) {
+                classNames.add(toClassName(classesRoot.relativize(changedFile), CLASS_POSTFIX));
+            } else if (fileName.endsWith(SOURCE_POSTFIX) && changedFile.startsWith(sourceRoot)) {
+                classNames.add(toClassName(sourceRoot.relativize(changedFile), SOURCE_POSTFIX));
+            } else if (fileName.indexOf('.') < 0) {
+                return null;
+            }
+        }
+        return classNames;
+    }
+
+    private Set<String> merge(Set<String> changedClasses, Set<String> failedClasses) {
+        if (changedClasses == null || failedClasses == null) {
+            return null;
+        }
+        if (failedClasses.isEmpty()) {
+            return changedClasses;
+        }
+        final Set<String> merged = Sets.newHashSet(changedClasses);
+        merged.addAll(failedClasses);
+        return merged;
+    }
+
+    private String toClassName(Path relativePath, String postfix) {
+        final StringBuilder builder = new StringBuilder();
+        for (Path segment : relativePath) {
+            if (builder.length() > 0) {
+                builder.append('.');
+            }
+            builder.append(segment.toString());
+        }
+        return builder.substring(0, builder.length() - postfix.length());
+    }
+
+    private void collectTypeNames(ClassMeta classMeta, Set<String> names, Set<ClassMeta> visited) {
+        if (classMeta == null || !visited.add(classMeta)) {
+            return;
+        }
+        if (classMeta.getClassType() != null) {
+            names.add(classMeta.getClassType().getName());
+            // inherited fields and methods are part of the meta, base dtos and controllers are not referenced otherwise
+            for (Class<?> supertype : classMetaReader.listCustomSupertypes(classMeta.getClassType())) {
+                names.add(supertype.getName());
+            }
+        }
+        if (classMeta.getGenericTypes() != null) {
+            for (ClassMeta genericType : classMeta.getGenericTypes()) {
+                collectTypeNames(genericType, names, visited);
+            }
+        }
+        if (classMeta.getClassFieldMetas() != null) {
+            for (FieldMeta fieldMeta : classMeta.getClassFieldMetas()) {
+                collectTypeNames(fieldMeta.getType(), names, visited);
+            }
+        }
+        if (classMeta.getApis() != null) {
+            for (Api api : classMeta.getApis()) {
+                if (api.getReturnValue() != null) {
+                    collectTypeNames(api.getReturnValue().getType(), names, visited);
+                }
+                if (api.getParameters() != null) {
+                    for (FieldMeta parameter : api.getParameters()) {
+                        collectTypeNames(parameter.getType(), names, visited);
+                    }
+                }
+            }
+        }
+    }
+
+    private void warnPartialExporters() {
+        for (ExporterDefinition exporter : exporters) {
+            if (ExporterEngine.ARCHIVE_EXPORTER_NAME.equals(exporter.getExporterName())) {
+                log.warn("watch mode exports regenerated docs only, the archive exporter will hold the last refreshed docs");
+            }
+        }
+    }
+}
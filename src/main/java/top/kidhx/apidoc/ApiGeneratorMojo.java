@@ -1,7 +1,9 @@
 package top.kidhx.apidoc;
 
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
@@ -9,18 +11,33 @@ import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.plugins.annotations.*;
 import org.apache.maven.project.MavenProject;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.DigestUtils;
 import top.kidhx.apidoc.apiwriter.ApiDocGenerator;
 import top.kidhx.apidoc.bo.ClassMeta;
 import top.kidhx.apidoc.bo.ExporterDefinition;
+import top.kidhx.apidoc.bo.MockLimits;
 import top.kidhx.apidoc.bo.enums.ClassInfoReaderType;
+import top.kidhx.apidoc.exporter.ExporterEngine;
 import top.kidhx.apidoc.sourcehandler.AbstractClassMetaReader;
+import top.kidhx.apidoc.sourcehandler.BuildStateTracker;
 import top.kidhx.apidoc.sourcehandler.ClassMetaReaderFactory;
 import top.kidhx.apidoc.sourcehandler.ClassScanner;
+import top.kidhx.apidoc.sourcehandler.ProjectClassLoaderFactory;
+import top.kidhx.apidoc.sourcehandler.ReactorMetadataCache;
+import top.kidhx.apidoc.sourcehandler.SourceJarCommentIndexer;
+import top.kidhx.apidoc.utils.PhaseMetrics;
 
 import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
 import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * @Author camushe
@@ -31,62 +48,190 @@ import java.util.Set;
 public class ApiGeneratorMojo extends AbstractMojo {
 
     URLClassLoader urlClassLoader;
-    private ClassScanner classScanner;
-    private AbstractClassMetaReader classMetaReader;
+    ClassScanner classScanner;
+    AbstractClassMetaReader classMetaReader;
     private ApiDocGenerator apiDocGenerator;
     @Parameter(property = "project.build.directory", readonly = true)
-    private File outputDirectory;
+    File outputDirectory;
     @Parameter(property = "project.build.sourceDirectory", readonly = true)
-    private File sourceDirectory;
+    File sourceDirectory;
     @Parameter
-    private String packageName;
+    String packageName;
     @Parameter(defaultValue = "INTERFACE")
     private String readerType;
     @Parameter(defaultValue = "${project}", readonly = true)
-    private MavenProject mavenProject;
+    MavenProject mavenProject;
+    @Parameter(defaultValue = "${session}", readonly = true)
+    MavenSession session;
     @Parameter
-    private List<ExporterDefinition> exporters;
-    private Log log;
+    List<ExporterDefinition> exporters;
+    /**
+     * threads used to read class metas, default to available processors
+     */
+    @Parameter
+    Integer threads;
+    /**
+     * only regenerate classes changed since last run
+     */
+    @Parameter(defaultValue = "false")
+    private boolean incremental;
+    /**
+     * custom constraint annotations, key is annotation class name, value is description template, attributes are referenced as {attributeName}
+     */
+    @Parameter
+    Map<String, String> restrictions;
+    /**
+     * depth, value and byte limits of mocked return value examples
+     */
+    @Parameter
+    MockLimits mockLimits;
+    /**
+     * slowest classes, source files and apis kept in target/api-doc-metrics.json, 0 disables the report
+     */
+    @Parameter(defaultValue = "20")
+    private int metricsTopN;
+    /**
+     * share class metas of dependency artifacts and parsed comments with later modules of the same reactor build
+     */
+    @Parameter(defaultValue = "true")
+    private boolean reactorCache;
+    /**
+     * read comments of dependency classes from their -sources.jar in the local repository, indexed once under
+     * the local repository
+     */
+    @Parameter(defaultValue = "true")
+    boolean sourceJarComments;
+    private PhaseMetrics phaseMetrics;
+    Log log;
 
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
         init();
         log.info("start generate api doc!");
         try {
-            final Set<Class<?>> classes = classScanner.loadClass(outputDirectory.getAbsolutePath(), packageName, mavenProject, urlClassLoader);
-            log.info("project classes found success:" + classes);
-
-            final List<ClassMeta> classMetas = classMetaReader.getClassMetas(Lists.newArrayList(classes), sourceDirectory.getAbsolutePath(), urlClassLoader);
-            log.info("apiMeta retrieved:" + classMetas);
+            final List<Class<?>> sortedClasses = scanClasses(urlClassLoader);
+            List<Class<?>> targetClasses = sortedClasses;
+            BuildStateTracker buildStateTracker = null;
+            if (isIncremental()) {
+                buildStateTracker = new BuildStateTracker(log, outputDirectory, getConfigHash(), classMetaReader, sourceDirectory.getAbsolutePath(), urlClassLoader);
+                buildStateTracker.load();
+                targetClasses = buildStateTracker.filterChanged(sortedClasses);
+            }
+            final List<ClassMeta> classMetas = classMetaReader.getClassMetas(targetClasses, sourceDirectory.getAbsolutePath(), urlClassLoader, threads);
+            log.info("class metas retrieved:" + classMetas.size());
+            final CacheStats sourceCacheStats = classMetaReader.getSourceCacheStats();
+            log.info("source comment cache hit:" + sourceCacheStats.hitCount() + ", miss:" + sourceCacheStats.missCount());
 
-            apiDocGenerator = new ApiDocGenerator(log, exporters, urlClassLoader);
+            apiDocGenerator = new ApiDocGenerator(log, exporters, urlClassLoader, threads, mockLimits).setPhaseMetrics(phaseMetrics);
             apiDocGenerator.generateApiDoc(classMetas);
+            if (buildStateTracker != null) {
+                buildStateTracker.record(classMetas);
+                buildStateTracker.save();
+            }
             log.info("markdown api export success, pls check:" + outputDirectory);
         } catch (Exception e) {
             throw new MojoExecutionException(e.getMessage(), e);
+        } finally {
+            ProjectClassLoaderFactory.close(urlClassLoader, log);
+            writeMetricsReport();
+        }
+    }
+
+    /**
+     * scan candidate classes of the package, sorted by name
+     */
+    List<Class<?>> scanClasses(ClassLoader classLoader) throws Exception {
+        final Set<Class<?>> classes = classScanner.loadClass(outputDirectory.getAbsolutePath(), packageName, getReaderType(), classLoader);
+        log.info("project classes found:" + classes.size());
+        return classes.stream()
+                .sorted(Comparator.comparing(Class::getName))
+                .collect(Collectors.toList());
+    }
+
+    private void writeMetricsReport() {
+        if (metricsTopN <= 0) {
+            return;
+        }
+        final File reportFile = new File(outputDirectory, PhaseMetrics.REPORT_FILE_NAME);
+        try {
+            phaseMetrics.writeReport(reportFile, mavenProject.getGroupId() + ":" + mavenProject.getArtifactId() + ":" + mavenProject.getVersion());
+            log.info("metrics report written:" + reportFile);
+        } catch (IOException e) {
+            log.warn("metrics report write failed:" + e.getMessage());
         }
     }
 
-    private void init() throws MojoExecutionException {
+    void init() throws MojoExecutionException {
         this.log = getLog();
-        classScanner = new ClassScanner(log);
-        urlClassLoader = (URLClassLoader) this.getClass().getClassLoader();
+        phaseMetrics = new PhaseMetrics(metricsTopN);
+        classScanner = new ClassScanner(log).setPhaseMetrics(phaseMetrics);
+        try {
+            urlClassLoader = ProjectClassLoaderFactory.create(session, mavenProject, ClassScanner.getClassesDir(outputDirectory.getAbsolutePath()), this.getClass().getClassLoader(), log);
+        } catch (MalformedURLException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
         classMetaReader = ClassMetaReaderFactory.createClassReader(getReaderType(), mavenProject, log, urlClassLoader);
+        classMetaReader.setPhaseMetrics(phaseMetrics);
+        if (restrictions != null) {
+            restrictions.forEach((annotationClassName, template) -> classMetaReader.getRestrictionRegistry().registerTemplate(annotationClassName, template));
+        }
+        if (sourceJarComments) {
+            final File indexDirectory = new File(session.getLocalRepository().getBasedir(), SourceJarCommentIndexer.INDEX_DIR_NAME);
+            classMetaReader.setSourceJarIndexer(new SourceJarCommentIndexer(log, indexDirectory).setPhaseMetrics(phaseMetrics));
+        }
+        if (reactorCache) {
+            classMetaReader.setReactorCache(ReactorMetadataCache.get(session, log), getReactorCacheConfig());
+        }
         if (CollectionUtils.isEmpty(exporters)) {
             exporters = Lists.newArrayList(
                     new ExporterDefinition()
                             .setExporterName("file")
                             .setParameters(new ImmutableMap.Builder<String, String>()
-                                    .put("output", outputDirectory.getAbsolutePath() + File.separator + "apiDoc" + File.separator)
+                                    .put("outputPath", outputDirectory.getAbsolutePath() + File.separator + "apiDoc" + File.separator)
                                     .build()));
         }
+        if (mockLimits == null) {
+            mockLimits = new MockLimits();
+        }
+        if (threads == null || threads < 1) {
+            threads = Runtime.getRuntime().availableProcessors();
+        }
         {
             //replace dot to file separator
             this.packageName = String.join(File.separator,packageName.split("\\."));
         }
     }
 
-    private ClassInfoReaderType getReaderType() throws MojoExecutionException {
+    /**
+     * an archive holds every doc, it would be replaced by an archive of the changed classes only
+     */
+    private boolean isIncremental() {
+        if (!incremental) {
+            return false;
+        }
+        for (ExporterDefinition exporter : exporters) {
+            if (ExporterEngine.ARCHIVE_EXPORTER_NAME.equals(exporter.getExporterName())) {
+                log.warn("incremental build ignored, the archive exporter needs all api docs");
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * hash of the configuration affecting generated docs, a change regenerates all docs of an incremental build
+     */
+    String getConfigHash() {
+        return DigestUtils.md5DigestAsHex((readerType + "|" + packageName + "|" + exporters + "|" + mockLimits + "|" + getReactorCacheConfig())
+                .getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String getReactorCacheConfig() {
+        final String templates = restrictions == null ? "" : new TreeMap<>(restrictions).toString();
+        return DigestUtils.md5DigestAsHex((templates + "|" + sourceJarComments).getBytes(StandardCharsets.UTF_8));
+    }
+
+    ClassInfoReaderType getReaderType() throws MojoExecutionException {
         try {
             return ClassInfoReaderType.valueOf(readerType);
         } catch (IllegalArgumentException e) {
@@ -2,16 +2,31 @@ package top.kidhx.apidoc.apiwriter;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.plugin.logging.Log;
 import org.springframework.util.CollectionUtils;
-import org.springframework.util.DigestUtils;
 import top.kidhx.apidoc.bo.*;
+import top.kidhx.apidoc.bo.enums.TableType;
 import top.kidhx.apidoc.exporter.ExporterEngine;
+import top.kidhx.apidoc.exporter.ExporterEngine.ConfiguredExporter;
+import top.kidhx.apidoc.exporter.PartitionedDocExporter;
+import top.kidhx.apidoc.exporter.StreamingDocExporter;
+import top.kidhx.apidoc.utils.DigestWriter;
+import top.kidhx.apidoc.utils.PhaseMetrics;
 import top.kidhx.apidoc.utils.StreamUtils;
 
-import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Collectors;
 
 /**
@@ -20,8 +35,6 @@ import java.util.stream.Collectors;
  */
 public class ApiDocGenerator {
 
-    public static final String TYPE_PARAM = "param";
-    public static final String TYPE_RETURN_VALUE = "returnValue";
     private MarkdownWriter writer;
 
     private Mocker mocker;
@@ -32,91 +45,263 @@ public class ApiDocGenerator {
 
     private ExporterEngine exporterEngine;
 
+    private PhaseMetrics phaseMetrics = PhaseMetrics.NONE;
+
+    private final LongAdder mockedExamples = new LongAdder();
+    private final LongAdder mockedBytes = new LongAdder();
+    private final LongAdder elidedExamples = new LongAdder();
+    private final LongAccumulator maxMockedBytes = new LongAccumulator(Math::max, 0);
+
     public ApiDocGenerator(Log log, List<ExporterDefinition> exporters, ClassLoader loader) {
+        this(log, exporters, loader, 1);
+    }
+
+    public ApiDocGenerator(Log log, List<ExporterDefinition> exporters, ClassLoader loader, int threads) {
+        this(log, exporters, loader, threads, new MockLimits());
+    }
+
+    public ApiDocGenerator(Log log, List<ExporterDefinition> exporters, ClassLoader loader, int threads, MockLimits mockLimits) {
         this.log = log;
         this.exporters = exporters;
         writer = new MarkdownWriter(log);
-        mocker = new Mocker(loader);
-        exporterEngine = new ExporterEngine(log);
+        mocker = new Mocker(loader, Mocker.DEFAULT_SEED, mockLimits);
+        exporterEngine = new ExporterEngine(log).setThreads(threads);
+    }
+
+    public ApiDocGenerator setPhaseMetrics(PhaseMetrics phaseMetrics) {
+        this.phaseMetrics = phaseMetrics;
+        return this;
     }
 
+    /**
+     * render api docs class by class, streaming exporters receive each doc while it is rendered,
+     * only the other exporters need the whole doc list in memory
+     *
+     * @param targetClasses class metas
+     */
     public void generateApiDoc(List<ClassMeta> targetClasses) throws Exception {
-        List<MarkDownApi> markDownApis = Lists.newArrayList();
+        if (CollectionUtils.isEmpty(targetClasses)) {
+            log.warn("empty api found, finish!");
+            return;
+        }
+        final List<ConfiguredExporter> streamingExporters = Lists.newArrayList();
+        final List<ConfiguredExporter> bufferedExporters = Lists.newArrayList();
+        int renderParallelism = 1;
+        ConfiguredExporter sequentialExporter = null;
+        for (ExporterDefinition exporterDefinition : exporters) {
+            final ConfiguredExporter exporter = exporterEngine.createConfiguredExporter(exporterDefinition);
+            if (exporter.getExporter() instanceof StreamingDocExporter) {
+                streamingExporters.add(exporter);
+                renderParallelism = Math.max(renderParallelism, exporterEngine.getParallelism(exporter));
+                if (!(exporter.getExporter() instanceof PartitionedDocExporter)) {
+                    sequentialExporter = exporter;
+                }
+            } else {
+                bufferedExporters.add(exporter);
+            }
+        }
+        // docs rendered in parallel are opened on every streaming exporter concurrently
+        if (renderParallelism > 1 && sequentialExporter != null) {
+            log.warn(sequentialExporter.getDefinition() + " does not support partitioned export, docs are rendered one by one");
+            renderParallelism = 1;
+        }
+
+        final boolean buffered = !bufferedExporters.isEmpty();
+        final List<MarkDownApi> markDownApis;
+        try {
+            if (renderParallelism > 1 && targetClasses.size() > 1) {
+                markDownApis = renderConcurrently(targetClasses, streamingExporters, buffered, renderParallelism);
+            } else {
+                markDownApis = Lists.newArrayList();
+                for (ClassMeta targetClass : targetClasses) {
+                    final MarkDownApi markDownApi = render(targetClass, streamingExporters, buffered);
+                    if (buffered) {
+                        markDownApis.add(markDownApi);
+                    }
+                }
+            }
+        } catch (Exception | Error e) {
+            // streaming exporters hold part of the docs, finishExport is never called
+            streamingExporters.forEach(exporterEngine::abort);
+            throw e;
+        }
+        log.info("mock examples:" + mockedExamples.sum() + ", bytes:" + mockedBytes.sum() + ", max bytes:" + maxMockedBytes.get()
+                + ", elided:" + elidedExamples.sum());
+        final int failed;
+        try (PhaseMetrics.Sample ignored = phaseMetrics.start(PhaseMetrics.EXPORT)) {
+            failed = finishStreaming(streamingExporters) + exportApi(bufferedExporters, markDownApis);
+        }
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " of " + exporters.size() + " exporters failed, see error log");
+        }
+    }
 
-        for (ClassMeta targetClass : targetClasses) {
-            log.info("generate api doc for " + targetClass.getClassName() + "...");
-            markDownApis.add(preGenerateApi(targetClass, Sets.newHashSet()));
+    /**
+     * render docs on a bounded pool, the docs keep the order of classes
+     */
+    private List<MarkDownApi> renderConcurrently(List<ClassMeta> targetClasses, List<ConfiguredExporter> streamingExporters, boolean buffered, int parallelism) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, targetClasses.size()),
+                new ThreadFactoryBuilder().setNameFormat("api-doc-render-%d").setDaemon(true).build());
+        try {
+            final List<Future<MarkDownApi>> futures = Lists.newArrayList();
+            for (ClassMeta targetClass : targetClasses) {
+                futures.add(executor.submit(() -> render(targetClass, streamingExporters, buffered)));
+            }
+            final List<MarkDownApi> markDownApis = Lists.newArrayList();
+            for (Future<MarkDownApi> future : futures) {
+                try {
+                    final MarkDownApi markDownApi = future.get();
+                    if (buffered) {
+                        markDownApis.add(markDownApi);
+                    }
+                } catch (ExecutionException e) {
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+            return markDownApis;
+        } finally {
+            executor.shutdownNow();
+            // renders still running would write into exporters aborted after a failure
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.warn("api doc render threads did not stop in time");
+            }
         }
-        exportApi(markDownApis);
     }
 
-    private void exportApi(List<MarkDownApi> markDownApis) {
-        log.info("start export api!");
-        if (CollectionUtils.isEmpty(markDownApis)) {
-            log.warn("empty api found, finish!");
-            return;
+    private MarkDownApi render(ClassMeta targetClass, List<ConfiguredExporter> streamingExporters, boolean buffered) throws Exception {
+        log.info("generate api doc for " + targetClass.getClassName() + "...");
+        try (PhaseMetrics.Sample ignored = phaseMetrics.start(PhaseMetrics.RENDERING, targetClass.getClassName())) {
+            return doRender(targetClass, streamingExporters, buffered);
+        }
+    }
+
+    private MarkDownApi doRender(ClassMeta targetClass, List<ConfiguredExporter> streamingExporters, boolean buffered) throws Exception {
+        final MarkDownApi markDownApi = preGenerateApi(targetClass);
+        final List<Writer> sinks = openSinks(streamingExporters, markDownApi);
+        final DigestWriter digest = new DigestWriter();
+        sinks.add(digest);
+        final StringWriter content = buffered ? new StringWriter() : null;
+        if (content != null) {
+            sinks.add(content);
         }
-        exporters.forEach(exporterDefinition -> exporterEngine.invoke(exporterDefinition, markDownApis));
+        final TeeWriter out = new TeeWriter(sinks, log);
+        try {
+            generateApi(targetClass, out, Sets.newHashSet());
+            // known before the sinks are closed, exporters commit by it instead of hashing again
+            markDownApi.setMd5(digest.getDigest());
+        } catch (Throwable e) {
+            out.abort();
+            throw e;
+        }
+        out.close();
+        if (content != null) {
+            markDownApi.setContent(content.toString());
+        }
+        return markDownApi;
+    }
+
+    private int finishStreaming(List<ConfiguredExporter> streamingExporters) {
+        int failed = 0;
+        for (ConfiguredExporter streamingExporter : streamingExporters) {
+            try {
+                streamingExporter.getExporter().finishExport();
+            } catch (Exception e) {
+                log.error(streamingExporter.getDefinition() + " export failed", e);
+                exporterEngine.abort(streamingExporter);
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    private List<Writer> openSinks(List<ConfiguredExporter> streamingExporters, MarkDownApi markDownApi) {
+        final List<Writer> sinks = Lists.newArrayList();
+        for (ConfiguredExporter streamingExporter : streamingExporters) {
+            try {
+                sinks.add(((StreamingDocExporter) streamingExporter.getExporter()).openApiDoc(markDownApi));
+            } catch (Exception e) {
+                log.error(streamingExporter.getDefinition() + " open api doc failed:" + markDownApi.getName(), e);
+            }
+        }
+        return sinks;
+    }
+
+    private int exportApi(List<ConfiguredExporter> bufferedExporters, List<MarkDownApi> markDownApis) {
+        if (bufferedExporters.isEmpty()) {
+            return 0;
+        }
+        log.info("start export api!");
+        return exporterEngine.invokeAll(bufferedExporters, markDownApis);
+    }
+
+    private MarkDownApi preGenerateApi(ClassMeta classMeta) {
+        return new MarkDownApi()
+                .setName(StringUtils.isNotBlank(classMeta.getDesc()) ? classMeta.getDesc() : classMeta.getClassName());
     }
 
-    private MarkDownApi preGenerateApi(ClassMeta classMeta, Set<String> writedClasses) throws Exception {
+    private void generateApi(ClassMeta classMeta, Appendable builder, Set<String> writedClasses) throws Exception {
         writedClasses.add(classMeta.getClassName());
 
-        final StringBuilder builder = new StringBuilder();
-        builder.append(writer.h(classMeta.getClassName(), 1));
-        builder.append("\n");
+        writer.h(builder, classMeta.getClassName(), 1);
+        builder.append('\n');
         if (StringUtils.isNotBlank(classMeta.getDesc())) {
-            builder.append(writer.b("类描述: " + classMeta.getDesc()));
+            writer.b(builder, "类描述: ", classMeta.getDesc());
         }
 
         final List<Api> apis = classMeta.getApis();
         for (Api api : apis) {
             doGenerateApi(api, builder);
         }
-
-        return new MarkDownApi()
-                .setName(StringUtils.isNotBlank(classMeta.getDesc()) ? classMeta.getDesc() : classMeta.getClassName())
-                .setMd5(generateMd5(classMeta.getClassName()))
-                .setContent(builder.toString());
     }
 
-    private String generateMd5(String text) {
-        return DigestUtils.md5DigestAsHex(text.getBytes());
-    }
-
-    private void doGenerateApi(Api api, StringBuilder builder) throws Exception {
-        builder.append(writer.h(api.getDesc() != null ? api.getDesc() : api.getName(), 2));
-        builder.append("\n");
-        builder.append(writer.h("接口名：", 3));
-        builder.append(api.getName());
-        builder.append("\n");
+    private void doGenerateApi(Api api, Appendable builder) throws Exception {
+        writer.h(builder, api.getDesc() != null ? api.getDesc() : api.getName(), 2);
+        builder.append('\n');
+        writer.h(builder, "接口名：", 3);
+        builder.append(api.getName()).append('\n');
         generateParameter(api.getParameters(), builder);
-        generateReturnValue(api.getReturnValue(), builder);
+        generateReturnValue(api, builder);
     }
 
-    private void generateReturnValue(FieldMeta returnValue, StringBuilder builder) throws Exception {
-        builder.append("\n");
-        builder.append(writer.h("返回结果示例", 3));
+    private void generateReturnValue(Api api, Appendable builder) throws Exception {
+        final FieldMeta returnValue = api.getReturnValue();
+        builder.append('\n');
+        writer.h(builder, "返回结果示例", 3);
         builder.append("\n```JSON\n");
-        builder.append(mocker.mock(returnValue));
+        try (PhaseMetrics.Sample ignored = phaseMetrics.start(PhaseMetrics.MOCKING, api.getName())) {
+            recordExample(api, mocker.mock(returnValue, builder));
+        }
         builder.append("\n```\n");
-        builder.append(writer.h("返回结果说明", 3));
-        builder.append("\n");
-        doGenerateParameter(Lists.newArrayList(returnValue), builder, TYPE_RETURN_VALUE);
+        writer.h(builder, "返回结果说明", 3);
+        builder.append('\n');
+        doGenerateParameter(Lists.newArrayList(returnValue), builder, TableType.RETURN_VALUE);
+    }
+
+    private void recordExample(Api api, MockExample example) {
+        mockedExamples.increment();
+        mockedBytes.add(example.getBytes());
+        maxMockedBytes.accumulate(example.getBytes());
+        if (example.isElided()) {
+            elidedExamples.increment();
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("mock example of " + api.getName() + ", bytes:" + example.getBytes() + ", nodes:" + example.getNodes()
+                    + (example.isElided() ? ", elided" : ""));
+        }
     }
 
-    private void generateParameter(List<FieldMeta> parameters, StringBuilder builder) {
-        builder.append(writer.h("参数：", 3));
-        builder.append("\n");
+    private void generateParameter(List<FieldMeta> parameters, Appendable builder) throws IOException {
+        writer.h(builder, "参数：", 3);
+        builder.append('\n');
         if (CollectionUtils.isEmpty(parameters)) {
             builder.append("无");
             return;
         }
 
-        doGenerateParameter(parameters, builder, TYPE_PARAM);
+        doGenerateParameter(parameters, builder, TableType.PARAM);
     }
 
-    private void doGenerateParameter(List<FieldMeta> parameters, StringBuilder builder, String type) {
+    private void doGenerateParameter(List<FieldMeta> parameters, Appendable builder, TableType type) throws IOException {
         List<ClassMeta> classMetas = Lists.newArrayList();
 
         parameters = parameters.stream().filter(a -> Objects.nonNull(a.getType())).collect(Collectors.toList());
@@ -130,16 +315,16 @@ public class ApiDocGenerator {
             }
         }
 
-        tableHeader(builder, type);
+        writer.tableHeader(builder, type);
         for (FieldMeta parameter : parameters) {
-            handleFieldMeta(parameter, builder, classMetas, type);
+            writer.tableRow(builder, parameter, type);
         }
 
         classMetas = classMetas.stream().filter(StreamUtils.distinctByKey(ClassMeta::getClassName)).collect(Collectors.toList());
         appendCustomFields(classMetas, builder, type);
     }
 
-    private void appendCustomFields(List<ClassMeta> classMetas, StringBuilder builder, String type) {
+    private void appendCustomFields(List<ClassMeta> classMetas, Appendable builder, TableType type) throws IOException {
         if (CollectionUtils.isEmpty(classMetas)) {
             return;
         }
@@ -149,54 +334,23 @@ public class ApiDocGenerator {
         }
     }
 
-    private void generateCustomClassTable(ClassMeta classMeta, StringBuilder builder, String type) {
+    private void generateCustomClassTable(ClassMeta classMeta, Appendable builder, TableType type) throws IOException {
         if (!isCustomType(classMeta.getClassName())) {
             return;
         }
 
-        builder.append("\n");
-        builder.append(writer.b(classMeta.getClassName()));
-        builder.append("\n");
+        builder.append('\n');
+        writer.b(builder, classMeta.getClassName());
+        builder.append('\n');
 
         if(!CollectionUtils.isEmpty(classMeta.getClassFieldMetas())){
-            tableHeader(builder,type);
+            writer.tableHeader(builder, type);
             for (FieldMeta classFieldMeta : classMeta.getClassFieldMetas()) {
-                builder.append(writer.tableCell(classFieldMeta.getName(), "head"));
-                builder.append(writer.tableCell(classFieldMeta.getTypeName(), null));
-                builder.append(writer.tableCell(Optional.ofNullable(classFieldMeta.getDesc()).orElse("暂无"), null));
-                if ("param".equalsIgnoreCase(type)) {
-                    builder.append(writer.tableCell(classFieldMeta.getRestriction(), null));
-                }
-                builder.append("\n");
+                writer.tableRow(builder, classFieldMeta, type);
             }
         }
     }
 
-    private void handleFieldMeta(FieldMeta parameter, StringBuilder builder, List<ClassMeta> classMetas, String type) {
-        builder.append(writer.tableCell(parameter.getName(), "head"));
-        builder.append(writer.tableCell(parameter.getTypeName(), null));
-        builder.append(writer.tableCell(parameter.getDesc(), null));
-        if ("param".equalsIgnoreCase(type)) {
-            builder.append(writer.tableCell(parameter.getRestriction(), null));
-        }
-    }
-
-    private void tableHeader(StringBuilder builder, String type) {
-        builder.append("\n");
-        builder.append(writer.tableCell("名称", "head"));
-        builder.append(writer.tableCell("类型", null));
-        builder.append(writer.tableCell("说明", null));
-        if ("param".equalsIgnoreCase(type)) {
-            builder.append(writer.tableCell("约束", null));
-        }
-        builder.append("\n");
-        builder.append("| ------ | ------ | ------ |");
-        if ("param".equalsIgnoreCase(type)) {
-            builder.append(" ------ |");
-        }
-        builder.append("\n");
-    }
-
     private void retrieveClassInfo(ClassMeta classMeta, List<ClassMeta> classMetas) {
         if (classMeta == null) {
             return;
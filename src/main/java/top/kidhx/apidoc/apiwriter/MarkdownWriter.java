@@ -1,47 +1,62 @@
 package top.kidhx.apidoc.apiwriter;
 
 import org.apache.maven.plugin.logging.Log;
+import top.kidhx.apidoc.bo.FieldMeta;
+import top.kidhx.apidoc.bo.enums.TableType;
+
+import java.io.IOException;
 
 /**
+ * markdown primitives appending into the caller's buffer, nothing is built in between
+ *
  * @author HX
  * @date 2022/1/31
  */
 public class MarkdownWriter {
 
+    private static final String[] HEADINGS = {"# ", "## ", "### ", "#### ", "##### ", "###### "};
+    private static final String ROW_START = " | ";
+    private static final String CELL_END = " | ";
+    private static final String EMPTY_DESC = "暂无";
+    private static final String PARAM_TABLE_HEADER = "\n | 名称 | 类型 | 说明 | 约束 | \n| ------ | ------ | ------ | ------ |\n";
+    private static final String RETURN_VALUE_TABLE_HEADER = "\n | 名称 | 类型 | 说明 | \n| ------ | ------ | ------ |\n";
+
     private Log log;
 
     public MarkdownWriter(Log log) {
         this.log = log;
     }
 
-    public String h(String text, int bond) {
-        if (bond > 6) {
-            bond = 6;
-        }
-
-        if (bond < 1) {
-            bond = 1;
-        }
+    public void h(Appendable out, CharSequence text, int bond) throws IOException {
+        out.append(HEADINGS[Math.min(Math.max(bond, 1), HEADINGS.length) - 1]).append(text);
+    }
 
-        final StringBuilder sb = new StringBuilder();
+    public void b(Appendable out, CharSequence text) throws IOException {
+        out.append("**").append(text).append("**");
+    }
 
-        for (int i = 0; i < bond; i++) {
-            sb.append("#");
-        }
-        sb.append(" ");
-        sb.append(text);
-        return sb.toString();
+    public void b(Appendable out, CharSequence label, CharSequence text) throws IOException {
+        out.append("**").append(label).append(text).append("**");
     }
 
-    public String tableCell(String text, String type) {
-        if ("head".equalsIgnoreCase(type)) {
-            return " | " + text + " | ";
-        } else {
-            return text + " | ";
-        }
+    public void tableHeader(Appendable out, TableType type) throws IOException {
+        out.append(type.isRestricted() ? PARAM_TABLE_HEADER : RETURN_VALUE_TABLE_HEADER);
     }
 
-    public String b(String text) {
-        return "**" + text + "**";
+    /**
+     * write one table row of a field, columns follow {@link #tableHeader(Appendable, TableType)}
+     *
+     * @param out       buffer
+     * @param fieldMeta field
+     * @param type      table type
+     */
+    public void tableRow(Appendable out, FieldMeta fieldMeta, TableType type) throws IOException {
+        out.append(ROW_START).append(fieldMeta.getName()).append(CELL_END)
+                .append(fieldMeta.getTypeName()).append(CELL_END)
+                .append(fieldMeta.getDesc() == null ? EMPTY_DESC : fieldMeta.getDesc()).append(CELL_END);
+        if (type.isRestricted()) {
+            out.append(fieldMeta.getRestriction()).append(CELL_END);
+        }
+        out.append('\n');
     }
 }
@@ -1,149 +1,356 @@
 package top.kidhx.apidoc.apiwriter;
 
-import com.alibaba.fastjson.JSON;
-import com.alibaba.fastjson.serializer.SerializerFeature;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.DigestUtils;
 import top.kidhx.apidoc.bo.ClassMeta;
 import top.kidhx.apidoc.bo.FieldMeta;
+import top.kidhx.apidoc.bo.MockExample;
+import top.kidhx.apidoc.bo.MockLimits;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.temporal.Temporal;
 import java.util.*;
 
 /**
+ * mocks json examples, tokens are written straight to the doc output while the field metas are walked,
+ * fields keep the order of class field metas. values of every object, collection and map type are generated
+ * from a random seeded by the type, so examples are the same across runs and endpoints whatever order the docs
+ * are rendered in, and a rendered example is reused for metas of the same structure. depth, values and bytes of an
+ * example are bounded by {@link MockLimits}, elided subtrees are replaced by placeholders
+ *
  * @author HX
  * @date 2022/1/31
  */
 public class Mocker {
 
+    public static final long DEFAULT_SEED = 20220101L;
+
+    private static final String DEPTH_LIMIT_PLACEHOLDER = "...(depth limit) ";
+    private static final String NODE_LIMIT_PLACEHOLDER = "...(node limit)";
+    private static final String SIZE_LIMIT_PLACEHOLDER = "...(size limit)";
+    private static final String ELIDED_FIELD_NAME = "...";
+
     private final List<String> stringMockDictionary = ImmutableList.of("naruto", "one piece", "world of warcraft", "lol");
 
     private final ClassLoader loader;
+    private final long seed;
+    private final MockLimits limits;
+    /**
+     * structure key -> rendered json example
+     */
+    private final Map<String, RenderedExample> renderedExamples = Maps.newConcurrentMap();
+    /**
+     * class meta instance -> structure key, metas are shared by many fields and apis
+     */
+    private final Map<ClassMeta, String> structureKeys = new MapMaker().weakKeys().makeMap();
 
     public Mocker(ClassLoader classLoader) {
-        this.loader = classLoader;
+        this(classLoader, DEFAULT_SEED, new MockLimits());
     }
 
-    public String mock(FieldMeta fieldMeta) throws ClassNotFoundException {
-        return JSON.toJSONString(fieldMeta.getType() == null ? "%" : mockValue(fieldMeta.getType()), SerializerFeature.PrettyFormat);
+    public Mocker(ClassLoader classLoader, long seed, MockLimits limits) {
+        this.loader = classLoader;
+        this.seed = seed;
+        this.limits = limits == null ? new MockLimits() : limits;
     }
 
-    private Map<Object, Object> mockPojo(ClassMeta classMeta) throws ClassNotFoundException {
-        Map<Object, Object> object = Maps.newHashMap();
+    /**
+     * write the json example of a field
+     *
+     * @param fieldMeta field meta
+     * @param out       doc output
+     * @return size of the example
+     */
+    public MockExample mock(FieldMeta fieldMeta, Appendable out) throws ClassNotFoundException, IOException {
+        if (fieldMeta.getType() == null) {
+            final PrettyJsonWriter json = new PrettyJsonWriter(out, null);
+            json.value("%");
+            return new MockExample().setNodes(1).setBytes(json.getBytes());
+        }
+        final String key = getStructureKey(fieldMeta.getType(), Sets.newIdentityHashSet());
+        final RenderedExample rendered = renderedExamples.get(key);
+        if (rendered != null) {
+            out.append(rendered.json);
+            return rendered.example;
+        }
+        final StringBuilder copy = new StringBuilder();
+        final PrettyJsonWriter json = new PrettyJsonWriter(out, copy);
+        final MockContext context = new MockContext(json);
+        mockValue(fieldMeta.getType(), newRandom(getTypeKey(fieldMeta.getType())), 0, context);
+        final MockExample example = new MockExample()
+                .setNodes(context.nodes)
+                .setBytes(json.getBytes())
+                .setElided(context.elided);
+        renderedExamples.putIfAbsent(key, new RenderedExample(copy.toString(), example));
+        return example;
+    }
 
-        if (classMeta != null) {
-            final List<FieldMeta> classFieldMetas = classMeta.getClassFieldMetas();
-            if (!CollectionUtils.isEmpty(classFieldMetas)) {
-                for (FieldMeta classFieldMeta : classFieldMetas) {
-                    final Object value = mockValue(classFieldMeta.getType() == null || classFieldMeta.getType().getClassType() == null ?
-                            new ClassMeta().setClassName(classFieldMeta.getTypeName())
-                            : classFieldMeta.getType()
-                    );
-                    object.put(classFieldMeta.getName(), Optional.ofNullable(value).orElse(classFieldMeta.getType()));
+    private void mockPojo(ClassMeta classMeta, Random random, int depth, MockContext context) throws ClassNotFoundException, IOException {
+        final PrettyJsonWriter json = context.json;
+        json.beginObject();
+        final List<FieldMeta> classFieldMetas = classMeta.getClassFieldMetas();
+        if (!CollectionUtils.isEmpty(classFieldMetas)) {
+            for (FieldMeta classFieldMeta : classFieldMetas) {
+                if (isOverSize(context)) {
+                    context.elided = true;
+                    json.name(ELIDED_FIELD_NAME);
+                    json.value(SIZE_LIMIT_PLACEHOLDER);
+                    break;
                 }
-            } else {
-                object.put("cycle reference checked, object name(should be self)", classMeta.getClassName());
+                json.name(classFieldMeta.getName());
+                mockValue(classFieldMeta.getType() == null || classFieldMeta.getType().getClassType() == null ?
+                        new ClassMeta().setClassName(classFieldMeta.getTypeName())
+                        : classFieldMeta.getType(), random, depth, context
+                );
             }
+        } else {
+            json.name("cycle reference checked, object name(should be self)");
+            json.value(classMeta.getClassName());
         }
-        return object;
+        json.endObject();
     }
 
-    private Object mockValue(ClassMeta classMeta) throws ClassNotFoundException {
+    private void mockValue(ClassMeta classMeta, Random random, int depth, MockContext context) throws ClassNotFoundException, IOException {
+        final PrettyJsonWriter json = context.json;
+        if (isOverSize(context)) {
+            context.elided = true;
+            json.value(SIZE_LIMIT_PLACEHOLDER);
+            return;
+        }
+        if (limits.getMaxNodes() > 0 && context.nodes >= limits.getMaxNodes()) {
+            context.elided = true;
+            json.value(NODE_LIMIT_PLACEHOLDER);
+            return;
+        }
+        context.nodes++;
         Class<?> parameterType = classMeta.getClassType();
         if (parameterType == null) {
             parameterType = loader.loadClass(classMeta.getClassName());
         }
 
         if (parameterType == boolean.class || parameterType == Boolean.class) {
-            return mockBoolean();
+            json.literal(mockBoolean(random));
         } else if (parameterType == byte.class || parameterType == Byte.class) {
-            return mockByte();
+            json.literal(mockByte(random));
         } else if (parameterType == short.class || parameterType == Short.class) {
-            return mockShort();
+            json.literal(mockShort(random));
         } else if (parameterType == int.class || parameterType == Integer.class) {
-            return mockInteger();
+            json.literal(mockInteger(random));
         } else if (parameterType == long.class || parameterType == Long.class) {
-            return mockLong();
+            json.literal(mockLong(random));
         } else if (parameterType == float.class || parameterType == Float.class) {
-            return mockFloat();
+            json.literal(mockFloat(random));
         } else if (parameterType == double.class || parameterType == Double.class) {
-            return mockDouble();
+            json.literal(mockDouble(random));
         } else if (parameterType == char.class || parameterType == Character.class) {
-            return mockCharacter();
+            json.value(String.valueOf(mockCharacter(random)));
         } else if(parameterType == String.class){
-            return mockString();
+            json.value(mockString(random));
         }else if (parameterType == Date.class || Temporal.class.isAssignableFrom(parameterType) || java.sql.Date.class == parameterType) {
-            return "2022-01-01";
-        } else if (Collection.class.isAssignableFrom(parameterType)) {
-            return mockCollection(classMeta);
-        } else if (Map.class.isAssignableFrom(parameterType)) {
-            return mockMap(classMeta);
+            json.value("2022-01-01");
+        } else {
+            mockComposite(classMeta, parameterType, depth, context);
         }
-        return mockPojo(classMeta);
+    }
 
+    /**
+     * collections, maps and pojos are mocked with their own random seeded by the resolved type
+     */
+    private void mockComposite(ClassMeta classMeta, Class<?> parameterType, int depth, MockContext context) throws ClassNotFoundException, IOException {
+        if (limits.getMaxDepth() > 0 && depth >= limits.getMaxDepth()) {
+            context.elided = true;
+            context.json.value(DEPTH_LIMIT_PLACEHOLDER + classMeta.getClassName());
+            return;
+        }
+        final Random random = newRandom(getTypeKey(classMeta));
+        if (Collection.class.isAssignableFrom(parameterType)) {
+            mockCollection(classMeta, random, depth + 1, context);
+        } else if (Map.class.isAssignableFrom(parameterType)) {
+            mockMap(classMeta, random, depth + 1, context);
+        } else {
+            mockPojo(classMeta, random, depth + 1, context);
+        }
     }
 
-    private Object mockMap(ClassMeta classMeta) throws ClassNotFoundException {
+    /**
+     * json keys are strings, the mocked key is written as its json text
+     */
+    private void mockMap(ClassMeta classMeta, Random random, int depth, MockContext context) throws ClassNotFoundException, IOException {
+        final PrettyJsonWriter json = context.json;
         final List<ClassMeta> genericTypes = classMeta.getGenericTypes();
-        Map<Object, Object> result = Maps.newHashMap();
+        json.beginObject();
         if (genericTypes == null || genericTypes.size() < 2) {
-            result.put("unknown", "unknown");
-            return result;
+            json.name("unknown");
+            json.value("unknown");
+        } else {
+            final StringBuilder key = new StringBuilder();
+            final MockContext keyContext = new MockContext(new PrettyJsonWriter(key, null));
+            keyContext.nodes = context.nodes;
+            mockValue(genericTypes.get(0), random, depth, keyContext);
+            context.nodes = keyContext.nodes;
+            context.elided |= keyContext.elided;
+            json.name(unquote(key));
+            mockValue(genericTypes.get(1), random, depth, context);
         }
-
-        result.put(mockValue(genericTypes.get(0)), mockValue(genericTypes.get(1)));
-        return result;
+        json.endObject();
     }
 
-    private Object mockCollection(ClassMeta classMeta) throws ClassNotFoundException {
-        final List<Object> objects = Lists.newArrayList();
+    private void mockCollection(ClassMeta classMeta, Random random, int depth, MockContext context) throws ClassNotFoundException, IOException {
+        final PrettyJsonWriter json = context.json;
         final List<ClassMeta> genericTypes = classMeta.getGenericTypes();
+        json.beginArray();
         if (CollectionUtils.isEmpty(genericTypes)) {
-            objects.add("unknown");
-            return objects;
+            json.value("unknown");
+        } else {
+            mockValue(genericTypes.get(0), random, depth, context);
         }
-        objects.add(mockValue(genericTypes.get(0)));
-        return objects;
+        json.endArray();
     }
 
-    private Byte mockByte() {
-        final byte[] bytes = new byte[1];
-        new Random().nextBytes(bytes);
-        return bytes[0];
+    private boolean isOverSize(MockContext context) {
+        return limits.getMaxBytes() > 0 && context.json.getBytes() >= limits.getMaxBytes();
     }
 
-    private Short mockShort() {
-        return new Short(new Random().nextInt(100) + "");
+    private String unquote(StringBuilder json) {
+        if (json.length() > 1 && json.charAt(0) == '"' && json.charAt(json.length() - 1) == '"') {
+            return json.substring(1, json.length() - 1);
+        }
+        return json.toString();
     }
 
-    private Float mockFloat() {
-        return new Random().nextFloat();
+    /**
+     * key of a resolved type, generic bindings included. a pojo cut by cycle check has no fields,
+     * the field count keeps it apart from the fully resolved one
+     */
+    private String getTypeKey(ClassMeta classMeta) {
+        final StringBuilder builder = new StringBuilder();
+        appendTypeKey(classMeta, builder);
+        return builder.toString();
     }
 
-    private Boolean mockBoolean() {
-        return new Random().nextBoolean();
+    private void appendTypeKey(ClassMeta classMeta, StringBuilder builder) {
+        builder.append(classMeta.getClassName());
+        final List<ClassMeta> genericTypes = classMeta.getGenericTypes();
+        if (!CollectionUtils.isEmpty(genericTypes)) {
+            builder.append('<');
+            for (int i = 0; i < genericTypes.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                appendTypeKey(genericTypes.get(i), builder);
+            }
+            builder.append('>');
+        }
+        builder.append('#').append(classMeta.getClassFieldMetas() == null ? 0 : classMeta.getClassFieldMetas().size());
     }
 
-    private Character mockCharacter() {
-        return Math.random() < .5 ? 'a' : 'd';
+    /**
+     * key of everything an example is rendered from: class names, generic types and fields down to the leaves.
+     * metas of one type cut by cycle check at different depths get different keys, unlike {@link #getTypeKey(ClassMeta)}
+     */
+    private String getStructureKey(ClassMeta classMeta, Set<ClassMeta> visiting) {
+        final String cached = structureKeys.get(classMeta);
+        if (cached != null) {
+            return cached;
+        }
+        if (!visiting.add(classMeta)) {
+            // metas do not reference themselves once cycles are cut, keep the key finite anyway
+            return "cycle:" + classMeta.getClassName();
+        }
+        final StringBuilder builder = new StringBuilder(classMeta.getClassName()).append('|').append(classMeta.getClassType() != null);
+        final List<ClassMeta> genericTypes = classMeta.getGenericTypes();
+        if (genericTypes != null) {
+            builder.append('<');
+            for (ClassMeta genericType : genericTypes) {
+                builder.append(getStructureKey(genericType, visiting)).append(',');
+            }
+            builder.append('>');
+        }
+        final List<FieldMeta> classFieldMetas = classMeta.getClassFieldMetas();
+        if (classFieldMetas != null) {
+            builder.append('{');
+            for (FieldMeta classFieldMeta : classFieldMetas) {
+                builder.append(classFieldMeta.getName()).append(':');
+                if (classFieldMeta.getType() == null || classFieldMeta.getType().getClassType() == null) {
+                    builder.append(classFieldMeta.getTypeName());
+                } else {
+                    builder.append(getStructureKey(classFieldMeta.getType(), visiting));
+                }
+                builder.append(',');
+            }
+            builder.append('}');
+        }
+        visiting.remove(classMeta);
+        final String key = DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8));
+        structureKeys.put(classMeta, key);
+        return key;
+    }
+
+    private Random newRandom(String key) {
+        return new Random(seed * 31 + key.hashCode());
+    }
+
+    private Byte mockByte(Random random) {
+        return (byte) random.nextInt(1 << 8);
+    }
+
+    private Short mockShort(Random random) {
+        return (short) random.nextInt(100);
+    }
+
+    private Float mockFloat(Random random) {
+        return random.nextFloat();
     }
 
-    public Double mockDouble() {
-        return new Random().doubles(1.0, 100000.0).findFirst().getAsDouble();
+    private Boolean mockBoolean(Random random) {
+        return random.nextBoolean();
     }
 
-    public Integer mockInteger() {
-        return new Random().nextInt(1000);
+    private Character mockCharacter(Random random) {
+        return random.nextBoolean() ? 'a' : 'd';
     }
 
-    public Long mockLong() {
-        return new Random().longs(1, 100000).findFirst().getAsLong();
+    public Double mockDouble(Random random) {
+        return 1.0 + random.nextDouble() * (100000.0 - 1.0);
     }
 
-    public String mockString() {
-        return stringMockDictionary.get(((Double) Math.floor(Math.random() * stringMockDictionary.size())).intValue());
+    public Integer mockInteger(Random random) {
+        return random.nextInt(1000);
     }
 
+    public Long mockLong(Random random) {
+        return 1L + random.nextInt(100000 - 1);
+    }
+
+    public String mockString(Random random) {
+        return stringMockDictionary.get(random.nextInt(stringMockDictionary.size()));
+    }
+
+    /**
+     * state of one example
+     */
+    private static class MockContext {
+        private final PrettyJsonWriter json;
+        private int nodes;
+        private boolean elided;
+
+        MockContext(PrettyJsonWriter json) {
+            this.json = json;
+        }
+    }
+
+    private static class RenderedExample {
+        private final String json;
+        private final MockExample example;
+
+        RenderedExample(String json, MockExample example) {
+            this.json = json;
+            this.example = example;
+        }
+    }
 }
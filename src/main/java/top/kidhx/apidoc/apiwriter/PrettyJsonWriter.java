@@ -0,0 +1,176 @@
+package top.kidhx.apidoc.apiwriter;
+
+import java.io.IOException;
+
+/**
+ * writes pretty json tokens straight to the doc output, tab indented like fastjson PrettyFormat,
+ * counts utf-8 bytes written and optionally keeps a copy of the output
+ *
+ * @author HX
+ * @date 2022/2/20
+ */
+class PrettyJsonWriter {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Appendable out;
+    private final StringBuilder copy;
+    private int indent;
+    private boolean first = true;
+    private boolean afterName;
+    private int bytes;
+
+    PrettyJsonWriter(Appendable out, StringBuilder copy) {
+        this.out = out;
+        this.copy = copy;
+    }
+
+    void beginObject() throws IOException {
+        beforeValue();
+        append('{');
+        indent++;
+        first = true;
+    }
+
+    void endObject() throws IOException {
+        end('}');
+    }
+
+    void beginArray() throws IOException {
+        beforeValue();
+        append('[');
+        indent++;
+        first = true;
+    }
+
+    void endArray() throws IOException {
+        end(']');
+    }
+
+    void name(String name) throws IOException {
+        separate();
+        quote(name);
+        append(':');
+        afterName = true;
+    }
+
+    void value(String value) throws IOException {
+        beforeValue();
+        quote(value);
+    }
+
+    /**
+     * numbers and booleans
+     */
+    void literal(Object value) throws IOException {
+        beforeValue();
+        append(String.valueOf(value));
+    }
+
+    int getBytes() {
+        return bytes;
+    }
+
+    private void end(char token) throws IOException {
+        indent--;
+        if (!first) {
+            newLine();
+        }
+        append(token);
+        first = false;
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+        } else {
+            separate();
+        }
+        first = false;
+    }
+
+    private void separate() throws IOException {
+        if (indent == 0) {
+            return;
+        }
+        if (!first) {
+            append(',');
+        }
+        newLine();
+        first = false;
+    }
+
+    private void newLine() throws IOException {
+        append('\n');
+        for (int i = 0; i < indent; i++) {
+            append('\t');
+        }
+    }
+
+    private void quote(String value) throws IOException {
+        append('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            append(value, start, i);
+            append('\\');
+            if (c == '"' || c == '\\') {
+                append(c);
+            } else if (c == '\n') {
+                append('n');
+            } else if (c == '\r') {
+                append('r');
+            } else if (c == '\t') {
+                append('t');
+            } else {
+                append('u');
+                append("00");
+                append(HEX[c >> 4]);
+                append(HEX[c & 0xF]);
+            }
+            start = i + 1;
+        }
+        append(value, start, value.length());
+        append('"');
+    }
+
+    private void append(char c) throws IOException {
+        out.append(c);
+        if (copy != null) {
+            copy.append(c);
+        }
+        bytes += utf8Length(c);
+    }
+
+    private void append(String value) throws IOException {
+        append(value, 0, value.length());
+    }
+
+    private void append(String value, int start, int end) throws IOException {
+        if (start == end) {
+            return;
+        }
+        out.append(value, start, end);
+        if (copy != null) {
+            copy.append(value, start, end);
+        }
+        for (int i = start; i < end; i++) {
+            bytes += utf8Length(value.charAt(i));
+        }
+    }
+
+    /**
+     * a surrogate pair takes 4 bytes, 2 for each half
+     */
+    private static int utf8Length(char c) {
+        if (c < 0x80) {
+            return 1;
+        } else if (c < 0x800 || Character.isSurrogate(c)) {
+            return 2;
+        }
+        return 3;
+    }
+}
@@ -0,0 +1,110 @@
+package top.kidhx.apidoc.apiwriter;
+
+import com.google.common.collect.Lists;
+import org.apache.maven.plugin.logging.Log;
+import top.kidhx.apidoc.exporter.DocWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * writes rendered doc to several exporter sinks, a failing sink is aborted and dropped without affecting the others
+ *
+ * @author HX
+ * @date 2022/2/16
+ */
+public class TeeWriter extends Writer {
+
+    private final List<Writer> writers;
+    private final Log log;
+
+    public TeeWriter(List<Writer> writers, Log log) {
+        this.writers = Lists.newArrayList(writers);
+        this.log = log;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        final Iterator<Writer> iterator = writers.iterator();
+        while (iterator.hasNext()) {
+            final Writer writer = iterator.next();
+            try {
+                writer.write(cbuf, off, len);
+            } catch (IOException e) {
+                drop(iterator, writer, e);
+            }
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        final Iterator<Writer> iterator = writers.iterator();
+        while (iterator.hasNext()) {
+            final Writer writer = iterator.next();
+            try {
+                writer.write(str, off, len);
+            } catch (IOException e) {
+                drop(iterator, writer, e);
+            }
+        }
+    }
+
+    @Override
+    public void flush() {
+        final Iterator<Writer> iterator = writers.iterator();
+        while (iterator.hasNext()) {
+            final Writer writer = iterator.next();
+            try {
+                writer.flush();
+            } catch (IOException e) {
+                drop(iterator, writer, e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Writer writer : writers) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                log.error("api doc export failed", e);
+            }
+        }
+        writers.clear();
+    }
+
+    /**
+     * rendering failed, abort every sink instead of closing it, so no partial doc is published
+     */
+    public void abort() {
+        for (Writer writer : writers) {
+            try {
+                abort(writer);
+            } catch (IOException e) {
+                log.error("api doc abort failed", e);
+            }
+        }
+        writers.clear();
+    }
+
+    private void drop(Iterator<Writer> iterator, Writer writer, IOException cause) {
+        log.error("api doc export failed", cause);
+        iterator.remove();
+        try {
+            abort(writer);
+        } catch (IOException e) {
+            // already failed
+        }
+    }
+
+    private static void abort(Writer writer) throws IOException {
+        if (writer instanceof DocWriter) {
+            ((DocWriter) writer).abort();
+        } else {
+            writer.close();
+        }
+    }
+}
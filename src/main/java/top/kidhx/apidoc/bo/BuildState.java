@@ -0,0 +1,30 @@
+package top.kidhx.apidoc.bo;
+
+import com.google.common.collect.Maps;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.Map;
+
+/**
+ * persisted state of the last doc generation
+ *
+ * @author HX
+ * @date 2022/2/12
+ */
+@Data
+@Accessors(chain = true)
+public class BuildState {
+    /**
+     * hash of the plugin configuration, state is discarded when it changes
+     */
+    private String configHash;
+    /**
+     * state of documented classes, key is class name
+     */
+    private Map<String, ClassState> classes;
+
+    public BuildState() {
+        this.classes = Maps.newHashMap();
+    }
+}
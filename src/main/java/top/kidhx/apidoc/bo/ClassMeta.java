@@ -36,4 +36,8 @@ public class ClassMeta {
      * generic type info
      */
     private List<ClassMeta> genericTypes;
+    /**
+     * type name with resolved type arguments of a parameterized custom type, such as a.Page&lt;a.Order&gt;
+     */
+    private String typeName;
 }
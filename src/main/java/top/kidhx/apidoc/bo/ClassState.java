@@ -0,0 +1,34 @@
+package top.kidhx.apidoc.bo;
+
+import com.google.common.collect.Maps;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.Map;
+
+/**
+ * fingerprints of a documented class and the types it references
+ *
+ * @author HX
+ * @date 2022/2/12
+ */
+@Data
+@Accessors(chain = true)
+public class ClassState {
+    /**
+     * hash of the .class file
+     */
+    private String classHash;
+    /**
+     * hash of the .java source file, empty when source is not found
+     */
+    private String sourceHash;
+    /**
+     * fingerprints of referenced types, key is class name
+     */
+    private Map<String, String> dependencies;
+
+    public ClassState() {
+        this.dependencies = Maps.newHashMap();
+    }
+}
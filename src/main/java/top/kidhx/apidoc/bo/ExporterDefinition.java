@@ -21,4 +21,9 @@ public class ExporterDefinition {
      * parameter definition from maven configuration
      */
     Map<String, String> parameters;
+    /**
+     * documents exported concurrently by this exporter, 1 by default,
+     * only applies to exporters implementing {@link top.kidhx.apidoc.exporter.PartitionedDocExporter}
+     */
+    Integer parallelism;
 }
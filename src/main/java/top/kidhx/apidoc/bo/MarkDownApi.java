@@ -15,7 +15,7 @@ public class MarkDownApi {
      */
     private String name;
     /**
-     * md5 key
+     * md5 of the utf-8 rendered content, set before the sinks of streaming exporters are closed
      */
     private String md5;
     /**
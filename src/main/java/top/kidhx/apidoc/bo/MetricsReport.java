@@ -0,0 +1,37 @@
+package top.kidhx.apidoc.bo;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.List;
+
+/**
+ * machine readable cost report of one doc generation
+ *
+ * @author HX
+ * @date 2022/2/21
+ */
+@Data
+@Accessors(chain = true)
+public class MetricsReport {
+    /**
+     * groupId:artifactId:version of the documented module
+     */
+    private String module;
+    /**
+     * epoch millis the generation started at
+     */
+    private long startTime;
+    /**
+     * wall time of the whole generation
+     */
+    private long wallMillis;
+    /**
+     * totals per phase, nested phases (source parsing in meta extraction, mocking in rendering) are included in their parents
+     */
+    private List<PhaseMetric> phases;
+    /**
+     * slowest classes, source files and apis over all phases
+     */
+    private List<PhaseMetric> slowest;
+}
@@ -0,0 +1,27 @@
+package top.kidhx.apidoc.bo;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * size of a mocked json example
+ *
+ * @author HX
+ * @date 2022/2/20
+ */
+@Data
+@Accessors(chain = true)
+public class MockExample {
+    /**
+     * values mocked
+     */
+    private int nodes;
+    /**
+     * utf-8 bytes of json
+     */
+    private int bytes;
+    /**
+     * whether some subtrees are replaced by placeholders
+     */
+    private boolean elided;
+}
@@ -0,0 +1,27 @@
+package top.kidhx.apidoc.bo;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * limits of a mocked json example, a limit not greater than 0 is unlimited
+ *
+ * @author HX
+ * @date 2022/2/20
+ */
+@Data
+@Accessors(chain = true)
+public class MockLimits {
+    /**
+     * nesting levels of objects, collections and maps, deeper ones are replaced by a placeholder
+     */
+    private int maxDepth = 8;
+    /**
+     * values mocked per example, values after the limit are replaced by a placeholder
+     */
+    private int maxNodes = 2000;
+    /**
+     * utf-8 bytes per example, values after the limit are replaced by a placeholder
+     */
+    private int maxBytes = 64 * 1024;
+}
@@ -0,0 +1,39 @@
+package top.kidhx.apidoc.bo;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * cost of a generation phase, or of one class in a phase
+ *
+ * @author HX
+ * @date 2022/2/21
+ */
+@Data
+@Accessors(chain = true)
+public class PhaseMetric {
+    /**
+     * phase name
+     */
+    private String phase;
+    /**
+     * class, source file or api name, empty for phase totals
+     */
+    private String name;
+    /**
+     * samples recorded
+     */
+    private long count;
+    /**
+     * wall time summed over samples, samples of worker threads overlap
+     */
+    private long wallMillis;
+    /**
+     * cpu time of the sampling threads, -1 when not supported by the jvm
+     */
+    private long cpuMillis;
+    /**
+     * bytes allocated by the sampling threads, -1 when not supported by the jvm
+     */
+    private long allocatedBytes;
+}
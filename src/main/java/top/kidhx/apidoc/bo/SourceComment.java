@@ -0,0 +1,40 @@
+package top.kidhx.apidoc.bo;
+
+import com.google.common.collect.Maps;
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+import java.util.Map;
+
+/**
+ * all comments resolved from one source file
+ *
+ * @author HX
+ * @date 2022/2/10
+ */
+@Data
+@Accessors(chain = true)
+public class SourceComment {
+    /**
+     * class comment
+     */
+    private String classComment;
+    /**
+     * method comments, key is method name
+     */
+    private Map<String, Comment> methodComments;
+    /**
+     * field comments, key is field name
+     */
+    private Map<String, Comment> fieldComments;
+    /**
+     * enum constant comments, key is constant name
+     */
+    private Map<String, Comment> enumComments;
+
+    public SourceComment() {
+        this.methodComments = Maps.newHashMap();
+        this.fieldComments = Maps.newHashMap();
+        this.enumComments = Maps.newHashMap();
+    }
+}
@@ -0,0 +1,26 @@
+package top.kidhx.apidoc.bo.enums;
+
+/**
+ * @author HX
+ * @date 2022/2/16
+ */
+public enum TableType {
+    /**
+     * parameter table, with restriction column
+     */
+    PARAM(true),
+    /**
+     * return value table
+     */
+    RETURN_VALUE(false);
+
+    private final boolean restricted;
+
+    TableType(boolean restricted) {
+        this.restricted = restricted;
+    }
+
+    public boolean isRestricted() {
+        return restricted;
+    }
+}
@@ -0,0 +1,329 @@
+package top.kidhx.apidoc.exporter;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.logging.Log;
+import org.springframework.util.DigestUtils;
+import top.kidhx.apidoc.bo.MarkDownApi;
+import top.kidhx.apidoc.utils.FileUtils;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+/**
+ * exports all api docs into one zip or tar.gz archive with an index.md table of contents.
+ * docs are compressed in parallel as they are closed and spilled to a temp file, only names and offsets are kept
+ * in memory. when the export finishes the entries are copied into the archive sorted by name and content, so the
+ * archive does not depend on the order docs were rendered in
+ *
+ * @author HX
+ * @date 2022/2/18
+ */
+public class ArchiveDocExporter implements StreamingDocExporter, PartitionedDocExporter {
+
+    public static final String INDEX_ENTRY_NAME = "index.md";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String SPILL_SUFFIX = ".spill";
+    /**
+     * docs waiting for or under compression per thread, bounds the uncompressed content held in memory
+     */
+    private static final int IN_FLIGHT_PER_THREAD = 2;
+
+    /**
+     * parameters from {@link top.kidhx.apidoc.bo.ExporterDefinition#getParameters()}
+     */
+    private String outputPath;
+    private String archiveName = "api-doc";
+    private String format = ArchiveWriter.FORMAT_ZIP;
+    private int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+    private int threads = Runtime.getRuntime().availableProcessors();
+
+    private Log log;
+
+    private ArchiveWriter archiveWriter;
+    private OutputStream out;
+    private Path temp;
+    private Path spill;
+    private FileChannel spillChannel;
+    private final AtomicLong spillSize = new AtomicLong();
+    private ExecutorService executor;
+    private Semaphore inFlight;
+    private volatile Throwable failure;
+    private boolean aborted;
+    private final List<SpilledEntry> spilled = Collections.synchronizedList(Lists.newArrayList());
+    /**
+     * entry name -> doc name, sorted for the index
+     */
+    private final Map<String, String> entries = Maps.newTreeMap();
+
+    public ArchiveDocExporter(Log log) {
+        this.log = log;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("compressionLevel must be between -1 and 9");
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be positive");
+        }
+        this.threads = threads;
+    }
+
+    @Override
+    public void exportApiDoc(List<MarkDownApi> apiDocs) {
+        for (MarkDownApi apiDoc : apiDocs) {
+            try (Writer writer = openApiDoc(apiDoc)) {
+                writer.write(apiDoc.getContent());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public DocWriter openApiDoc(MarkDownApi apiDoc) throws IOException {
+        open();
+        return new EntryWriter(apiDoc);
+    }
+
+    @Override
+    public synchronized void finishExport() throws IOException {
+        if (archiveWriter == null || aborted) {
+            return;
+        }
+        try {
+            executor.shutdown();
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                    log.info("archive exporter: waiting for api doc compression");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("archive export interrupted");
+            }
+            if (failure != null) {
+                throw new IOException("api doc compress failed", failure);
+            }
+            spilled.sort(Comparator.comparing((SpilledEntry entry) -> entry.docName).thenComparing(entry -> entry.md5));
+            for (SpilledEntry entry : spilled) {
+                final String entryName = uniqueEntryName(entry.docName);
+                entries.put(entryName, entry.docName);
+                archiveWriter.write(entryName, new ArchiveWriter.Entry(readSpilled(entry), entry.crc, entry.size));
+            }
+            archiveWriter.write(INDEX_ENTRY_NAME, archiveWriter.compress(index().getBytes(StandardCharsets.UTF_8)));
+            archiveWriter.finish();
+            out.close();
+            final Path target = getTarget();
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            log.info("archive exporter:" + entries.size() + " api docs export success, path: " + target.toAbsolutePath());
+        } finally {
+            executor.shutdownNow();
+            release();
+        }
+    }
+
+    /**
+     * drop the unfinished archive, the previously exported one stays in place
+     */
+    @Override
+    public synchronized void abortExport() throws IOException {
+        aborted = true;
+        if (archiveWriter == null) {
+            return;
+        }
+        executor.shutdownNow();
+        release();
+    }
+
+    private void release() throws IOException {
+        try {
+            out.close();
+            spillChannel.close();
+        } finally {
+            Files.deleteIfExists(temp);
+            Files.deleteIfExists(spill);
+        }
+    }
+
+    private synchronized void open() throws IOException {
+        if (aborted) {
+            throw new IOException("archive export aborted");
+        }
+        if (archiveWriter != null) {
+            return;
+        }
+        if (StringUtils.isBlank(outputPath)) {
+            outputPath = this.getClass().getResource("/").getPath();
+        }
+        final Path directory = Paths.get(outputPath).toAbsolutePath();
+        Files.createDirectories(directory);
+        temp = FileUtils.createTempFile(directory, "." + archiveName, TEMP_SUFFIX, directory.resolve(getTargetName()));
+        spill = Files.createTempFile(directory, "." + archiveName, SPILL_SUFFIX);
+        spillChannel = FileChannel.open(spill, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16);
+        archiveWriter = ArchiveWriter.create(format, out, compressionLevel);
+        executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("api-doc-archive-%d").setDaemon(true).build());
+        inFlight = new Semaphore(threads * IN_FLIGHT_PER_THREAD);
+    }
+
+    /**
+     * queue compression of one doc, blocks while too many docs are queued. the compressed entry is spilled and
+     * written into the archive when the export finishes
+     */
+    private void add(MarkDownApi apiDoc, byte[] content) throws IOException {
+        final String md5 = apiDoc.getMd5() == null ? DigestUtils.md5DigestAsHex(content) : apiDoc.getMd5();
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("archive export interrupted");
+        }
+        synchronized (this) {
+            if (aborted) {
+                inFlight.release();
+                return;
+            }
+            executor.execute(() -> {
+                try {
+                    spill(apiDoc.getName(), md5, archiveWriter.compress(content));
+                } catch (Throwable e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    /**
+     * positional writes of the channel are safe from several threads, each entry gets its own range
+     */
+    private void spill(String docName, String md5, ArchiveWriter.Entry entry) throws IOException {
+        final long offset = spillSize.getAndAdd(entry.data.length);
+        final ByteBuffer buffer = ByteBuffer.wrap(entry.data);
+        while (buffer.hasRemaining()) {
+            spillChannel.write(buffer, offset + buffer.position());
+        }
+        spilled.add(new SpilledEntry(docName, md5, offset, entry.data.length, entry.crc, entry.size));
+    }
+
+    private byte[] readSpilled(SpilledEntry entry) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+        while (buffer.hasRemaining()) {
+            if (spillChannel.read(buffer, entry.offset + buffer.position()) < 0) {
+                throw new EOFException("spilled api doc truncated:" + entry.docName);
+            }
+        }
+        return buffer.array();
+    }
+
+    private Path getTarget() {
+        return temp.resolveSibling(getTargetName());
+    }
+
+    private String getTargetName() {
+        return archiveName + "." + ArchiveWriter.getExtension(format);
+    }
+
+    private String uniqueEntryName(String name) {
+        String entryName = name + ".md";
+        for (int i = 1; entries.containsKey(entryName) || INDEX_ENTRY_NAME.equals(entryName); i++) {
+            entryName = name + "(" + i + ").md";
+        }
+        return entryName;
+    }
+
+    private String index() {
+        final StringBuilder builder = new StringBuilder("# ").append(archiveName).append("\n\n");
+        entries.forEach((entryName, name) -> builder.append("- [").append(name).append("](").append(entryName.replace(" ", "%20")).append(")\n"));
+        return builder.toString();
+    }
+
+    /**
+     * compressed entry in the spill file
+     */
+    private static class SpilledEntry {
+        private final String docName;
+        private final String md5;
+        private final long offset;
+        private final int length;
+        private final long crc;
+        private final long size;
+
+        SpilledEntry(String docName, String md5, long offset, int length, long crc, long size) {
+            this.docName = docName;
+            this.md5 = md5;
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+            this.size = size;
+        }
+    }
+
+    /**
+     * buffers the utf-8 content of one doc, the entry is added to the archive on close and dropped on abort
+     */
+    private class EntryWriter extends DocWriter {
+        private final MarkDownApi apiDoc;
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        private final Writer delegate = new OutputStreamWriter(content, StandardCharsets.UTF_8);
+        private boolean closed;
+
+        EntryWriter(MarkDownApi apiDoc) {
+            this.apiDoc = apiDoc;
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            delegate.write(cbuf, off, len);
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            delegate.write(str, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void abort() {
+            closed = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            delegate.close();
+            add(apiDoc, content.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package top.kidhx.apidoc.exporter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * writes compressed entries into one archive stream. {@link #compress(byte[])} is thread safe and does the expensive
+ * part without knowing the entry name, {@link #write(String, Entry)} and {@link #finish()} are called by one thread
+ * at a time
+ *
+ * @author HX
+ * @date 2022/2/18
+ */
+abstract class ArchiveWriter {
+
+    public static final String FORMAT_ZIP = "zip";
+    public static final String FORMAT_TAR_GZ = "tar.gz";
+
+    protected final OutputStream out;
+    protected final int level;
+
+    ArchiveWriter(OutputStream out, int level) {
+        this.out = out;
+        this.level = level;
+    }
+
+    static ArchiveWriter create(String format, OutputStream out, int level) {
+        if (FORMAT_ZIP.equalsIgnoreCase(format)) {
+            return new ZipArchiveWriter(out, level);
+        }
+        if (FORMAT_TAR_GZ.equalsIgnoreCase(format) || "tgz".equalsIgnoreCase(format)) {
+            return new TarGzArchiveWriter(out, level);
+        }
+        throw new IllegalArgumentException("unsupported archive format:" + format);
+    }
+
+    static String getExtension(String format) {
+        return "tgz".equalsIgnoreCase(format) ? FORMAT_TAR_GZ : format.toLowerCase();
+    }
+
+    /**
+     * compress one entry independently of the others
+     *
+     * @param content uncompressed content
+     * @return compressed entry
+     */
+    abstract Entry compress(byte[] content) throws IOException;
+
+    /**
+     * append a compressed entry
+     *
+     * @param name  entry name
+     * @param entry compressed entry
+     */
+    abstract void write(String name, Entry entry) throws IOException;
+
+    /**
+     * write archive trailer, the stream is not closed
+     */
+    abstract void finish() throws IOException;
+
+    static class Entry {
+        final byte[] data;
+        final long crc;
+        final long size;
+
+        Entry(byte[] data, long crc, long size) {
+            this.data = data;
+            this.crc = crc;
+            this.size = size;
+        }
+    }
+}
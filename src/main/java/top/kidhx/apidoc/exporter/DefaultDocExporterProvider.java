@@ -0,0 +1,21 @@
+package top.kidhx.apidoc.exporter;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Map;
+
+/**
+ * built-in exporters
+ *
+ * @author HX
+ * @date 2022/2/19
+ */
+public class DefaultDocExporterProvider implements DocExporterProvider {
+
+    @Override
+    public Map<String, Class<? extends DocExporter>> getExporters() {
+        return ImmutableMap.of(
+                ExporterEngine.FILE_EXPORTER_NAME, FileDocExporter.class,
+                ExporterEngine.ARCHIVE_EXPORTER_NAME, ArchiveDocExporter.class);
+    }
+}
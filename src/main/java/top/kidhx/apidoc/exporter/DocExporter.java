@@ -2,18 +2,35 @@ package top.kidhx.apidoc.exporter;
 
 import top.kidhx.apidoc.bo.MarkDownApi;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
+ * exporter of the whole doc list, implement {@link StreamingDocExporter} to receive docs while they are rendered
+ *
  * @author HX
  * @date 2022/1/31
  */
 public interface DocExporter {
 
     /**
-     * export markdown api doc
+     * export markdown api doc, called with the whole doc list from one thread unless the exporter is
+     * a {@link PartitionedDocExporter}
      *
      * @param apiDocs generated api doc list
      */
     void exportApiDoc(List<MarkDownApi> apiDocs);
+
+    /**
+     * called once after all api docs are exported
+     */
+    default void finishExport() throws IOException {
+    }
+
+    /**
+     * called instead of {@link #finishExport()} when rendering or exporting failed, release resources and keep
+     * the previously exported output
+     */
+    default void abortExport() throws IOException {
+    }
 }
@@ -0,0 +1,22 @@
+package top.kidhx.apidoc.exporter;
+
+import java.util.Map;
+
+/**
+ * exporter spi, implementations are discovered by {@link java.util.ServiceLoader} from
+ * META-INF/services/top.kidhx.apidoc.exporter.DocExporterProvider on the plugin class path.
+ * an exporter class needs a constructor taking maven Log or no argument, its parameters are bound
+ * to setters or fields of the same name
+ *
+ * @author HX
+ * @date 2022/2/19
+ */
+public interface DocExporterProvider {
+
+    /**
+     * exporters provided
+     *
+     * @return exporter name -> exporter class
+     */
+    Map<String, Class<? extends DocExporter>> getExporters();
+}
@@ -0,0 +1,19 @@
+package top.kidhx.apidoc.exporter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * sink of one api doc of a {@link StreamingDocExporter}. close publishes the doc, abort is called instead of close
+ * when rendering failed, so a partial doc never replaces the previous one
+ *
+ * @author HX
+ * @date 2022/2/17
+ */
+public abstract class DocWriter extends Writer {
+
+    /**
+     * discard what was written and release the sink, does nothing after close
+     */
+    public abstract void abort() throws IOException;
+}
@@ -1,17 +1,23 @@
 package top.kidhx.apidoc.exporter;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import lombok.Data;
 import lombok.experimental.Accessors;
 import org.apache.maven.plugin.logging.Log;
 import top.kidhx.apidoc.bo.ExporterDefinition;
 import top.kidhx.apidoc.bo.MarkDownApi;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author HX
@@ -22,40 +28,219 @@ import java.util.Map;
 public class ExporterEngine {
 
     public static final String FILE_EXPORTER_NAME = "file";
-    private static final Map<String, Class<? extends DocExporter>> exporterMap = Maps.newHashMap();
+    public static final String ARCHIVE_EXPORTER_NAME = "archive";
+    private static final Map<String, Class<? extends DocExporter>> EXPORTERS = loadExporters();
+    private static final Map<Class<? extends DocExporter>, ExporterMetadata> METADATA = Maps.newConcurrentMap();
     private Log log;
+    /**
+     * max exporters running at the same time
+     */
+    private int threads = 1;
 
     public ExporterEngine(Log log) {
         this.log = log;
-        exporterMap.put("file", FileDocExporter.class);
     }
 
     public void invoke(ExporterDefinition exporterDefinition, List<MarkDownApi> markDownApis) {
-        DocExporter docExporter = getExporter(exporterDefinition);
+        DocExporter docExporter = createExporter(exporterDefinition);
         docExporter.exportApiDoc(markDownApis);
     }
 
-    private DocExporter getExporter(ExporterDefinition exporterDefinition) {
+    /**
+     * run exporters concurrently on a bounded pool, a failed exporter is logged and does not stop the others
+     *
+     * @param exporters    exporters with their definitions
+     * @param markDownApis api docs
+     * @return count of failed exporters
+     */
+    public int invokeAll(List<ConfiguredExporter> exporters, List<MarkDownApi> markDownApis) {
+        if (exporters.isEmpty()) {
+            return 0;
+        }
+        if (exporters.size() == 1 || threads <= 1) {
+            int failed = 0;
+            for (ConfiguredExporter exporter : exporters) {
+                try {
+                    export(exporter, markDownApis);
+                } catch (Exception e) {
+                    log.error(exporter.getDefinition() + " export failed", e);
+                    failed++;
+                }
+            }
+            return failed;
+        }
+
+        final ExecutorService executor = newPool(Math.min(threads, exporters.size()), "api-doc-export-%d");
         try {
-            Class<? extends DocExporter> exporterClass = exporterMap.get(exporterDefinition.getExporterName());
-            Constructor<? extends DocExporter> declaredConstructor = exporterClass.getDeclaredConstructor(Log.class);
-            DocExporter docExporter = declaredConstructor.newInstance(log);
-            Map<String, String> parameters = exporterDefinition.getParameters();
-            if(parameters != null){
-                parameters.forEach((k, v) -> {
-                    Field declaredField = null;
-                    try {
-                        declaredField = exporterClass.getDeclaredField(k);
-                        declaredField.setAccessible(true);
-                        declaredField.set(docExporter, v);
-                    } catch (NoSuchFieldException | IllegalAccessException e) {
-                        throw new IllegalStateException(exporterDefinition + "配置错误:" + e.getMessage());
+            final List<Future<?>> futures = Lists.newArrayList();
+            for (ConfiguredExporter exporter : exporters) {
+                futures.add(executor.submit(() -> {
+                    export(exporter, markDownApis);
+                    return null;
+                }));
+            }
+            int failed = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    futures.get(i).get();
+                } catch (ExecutionException e) {
+                    log.error(exporters.get(i).getDefinition() + " export failed", e.getCause());
+                    failed++;
+                }
+            }
+            return failed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("api doc export interrupted", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * export docs with one exporter, the docs are split into parallelism parts exported concurrently
+     * when the exporter is a {@link PartitionedDocExporter}
+     */
+    private void export(ConfiguredExporter exporter, List<MarkDownApi> markDownApis) throws Exception {
+        try {
+            doExport(exporter, markDownApis);
+        } catch (Exception e) {
+            abort(exporter);
+            throw e;
+        }
+    }
+
+    /**
+     * release an exporter whose export failed, see {@link DocExporter#abortExport()}
+     *
+     * @param exporter failed exporter
+     */
+    public void abort(ConfiguredExporter exporter) {
+        try {
+            exporter.getExporter().abortExport();
+        } catch (Exception e) {
+            log.warn(exporter.getDefinition() + " abort failed:" + e.getMessage());
+        }
+    }
+
+    private void doExport(ConfiguredExporter exporter, List<MarkDownApi> markDownApis) throws Exception {
+        final int parallelism = getParallelism(exporter);
+        if (parallelism <= 1 || markDownApis.size() <= 1) {
+            exporter.getExporter().exportApiDoc(markDownApis);
+            exporter.getExporter().finishExport();
+            return;
+        }
+        final ExecutorService executor = newPool(parallelism, "api-doc-export-" + exporter.getDefinition().getExporterName() + "-%d");
+        try {
+            final List<Future<?>> futures = Lists.newArrayList();
+            for (List<MarkDownApi> part : Lists.partition(markDownApis, (markDownApis.size() + parallelism - 1) / parallelism)) {
+                futures.add(executor.submit(() -> exporter.getExporter().exportApiDoc(part)));
+            }
+            Exception failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
                     }
-                });
+                }
+            }
+            if (failure != null) {
+                throw failure;
             }
-            return docExporter;
-        } catch (NoSuchMethodException | InstantiationException | IllegalAccessException | InvocationTargetException e) {
-            throw new IllegalStateException(exporterDefinition + "配置错误:" + e.getMessage());
+            exporter.getExporter().finishExport();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * configured parallelism of an exporter, 1 with a warning when the exporter does not support partitioned export
+     *
+     * @param exporter exporter with its definition
+     * @return parallelism
+     */
+    public int getParallelism(ConfiguredExporter exporter) {
+        final int parallelism = getParallelism(exporter.getDefinition());
+        if (parallelism > 1 && !(exporter.getExporter() instanceof PartitionedDocExporter)) {
+            log.warn(exporter.getDefinition() + " does not support partitioned export, parallelism ignored");
+            return 1;
+        }
+        return parallelism;
+    }
+
+    public static int getParallelism(ExporterDefinition exporterDefinition) {
+        return exporterDefinition.getParallelism() == null ? 1 : Math.max(1, exporterDefinition.getParallelism());
+    }
+
+    private static ExecutorService newPool(int size, String nameFormat) {
+        return Executors.newFixedThreadPool(size, new ThreadFactoryBuilder().setNameFormat(nameFormat).setDaemon(true).build());
+    }
+
+    public ConfiguredExporter createConfiguredExporter(ExporterDefinition exporterDefinition) {
+        return new ConfiguredExporter(exporterDefinition, createExporter(exporterDefinition));
+    }
+
+    /**
+     * create and configure an exporter, safe to call concurrently
+     *
+     * @param exporterDefinition exporter definition
+     * @return exporter
+     */
+    public DocExporter createExporter(ExporterDefinition exporterDefinition) {
+        final Class<? extends DocExporter> exporterClass = EXPORTERS.get(exporterDefinition.getExporterName());
+        if (exporterClass == null) {
+            throw new IllegalStateException(exporterDefinition + "配置错误: 未知的导出器, 可选:" + EXPORTERS.keySet());
+        }
+        try {
+            return METADATA.computeIfAbsent(exporterClass, ExporterMetadata::new).newInstance(log, exporterDefinition.getParameters());
+        } catch (IllegalStateException e) {
+            throw new IllegalStateException(exporterDefinition + "配置错误:" + e.getMessage(), e);
+        }
+    }
+
+    public static Set<String> getExporterNames() {
+        return EXPORTERS.keySet();
+    }
+
+    /**
+     * built-in exporters first, then the ones of {@link DocExporterProvider} implementations on the plugin class path
+     */
+    private static Map<String, Class<? extends DocExporter>> loadExporters() {
+        final Map<String, Class<? extends DocExporter>> exporters = Maps.newLinkedHashMap(new DefaultDocExporterProvider().getExporters());
+        for (DocExporterProvider provider : ServiceLoader.load(DocExporterProvider.class, ExporterEngine.class.getClassLoader())) {
+            if (provider instanceof DefaultDocExporterProvider) {
+                continue;
+            }
+            provider.getExporters().forEach((name, exporterClass) -> {
+                final Class<? extends DocExporter> registered = exporters.putIfAbsent(name, exporterClass);
+                if (registered != null && registered != exporterClass) {
+                    throw new IllegalStateException("exporter name " + name + " is already registered by " + registered.getName());
+                }
+            });
+        }
+        return ImmutableMap.copyOf(exporters);
+    }
+
+    /**
+     * exporter instance with the definition it was created from
+     */
+    public static class ConfiguredExporter {
+        private final ExporterDefinition definition;
+        private final DocExporter exporter;
+
+        ConfiguredExporter(ExporterDefinition definition, DocExporter exporter) {
+            this.definition = definition;
+            this.exporter = exporter;
+        }
+
+        public ExporterDefinition getDefinition() {
+            return definition;
+        }
+
+        public DocExporter getExporter() {
+            return exporter;
         }
     }
 }
@@ -0,0 +1,159 @@
+package top.kidhx.apidoc.exporter;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * constructor and parameter binders of one exporter class, resolved once and immutable afterwards
+ *
+ * @author HX
+ * @date 2022/2/19
+ */
+class ExporterMetadata {
+
+    private static final Map<Class<?>, Function<String, Object>> CONVERTERS = ImmutableMap.<Class<?>, Function<String, Object>>builder()
+            .put(String.class, value -> value)
+            .put(int.class, Integer::valueOf)
+            .put(Integer.class, Integer::valueOf)
+            .put(long.class, Long::valueOf)
+            .put(Long.class, Long::valueOf)
+            .put(boolean.class, Boolean::valueOf)
+            .put(Boolean.class, Boolean::valueOf)
+            .put(double.class, Double::valueOf)
+            .put(Double.class, Double::valueOf)
+            .put(File.class, File::new)
+            .put(Path.class, value -> Paths.get(value))
+            .build();
+
+    private final Class<? extends DocExporter> exporterClass;
+    private final MethodHandle constructor;
+    private final boolean logConstructor;
+    private final Map<String, Binder> binders;
+
+    ExporterMetadata(Class<? extends DocExporter> exporterClass) {
+        this.exporterClass = exporterClass;
+        final MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle handle;
+        boolean withLog = true;
+        try {
+            try {
+                handle = lookup.unreflectConstructor(accessible(exporterClass.getDeclaredConstructor(Log.class)));
+            } catch (NoSuchMethodException e) {
+                handle = lookup.unreflectConstructor(accessible(exporterClass.getDeclaredConstructor()));
+                withLog = false;
+            }
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException(exporterClass.getName() + " needs a constructor taking maven Log or no argument", e);
+        }
+        this.constructor = handle;
+        this.logConstructor = withLog;
+        this.binders = resolveBinders(exporterClass, lookup);
+    }
+
+    DocExporter newInstance(Log log, Map<String, String> parameters) {
+        final DocExporter docExporter;
+        try {
+            docExporter = (DocExporter) (logConstructor ? constructor.invoke(log) : constructor.invoke());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(exporterClass.getName() + " create failed:" + e.getMessage(), e);
+        }
+        if (parameters != null) {
+            parameters.forEach((name, value) -> bind(docExporter, name, value));
+        }
+        return docExporter;
+    }
+
+    private void bind(DocExporter docExporter, String name, String value) {
+        final Binder binder = binders.get(name);
+        if (binder == null) {
+            throw new IllegalStateException("unknown parameter:" + name + ", supported:" + binders.keySet());
+        }
+        final Object converted;
+        try {
+            converted = binder.converter.apply(value);
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("parameter " + name + " can not be converted from:" + value, e);
+        }
+        try {
+            binder.setter.invoke(docExporter, converted);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("parameter " + name + " bind failed:" + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * setters win over fields of the same name, fields of super classes are included
+     */
+    private static Map<String, Binder> resolveBinders(Class<?> exporterClass, MethodHandles.Lookup lookup) {
+        final Map<String, Binder> binders = new HashMap<>();
+        for (Class<?> type = exporterClass; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                final Function<String, Object> converter = getConverter(field.getType());
+                if (converter == null || Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers()) || binders.containsKey(field.getName())) {
+                    continue;
+                }
+                try {
+                    binders.put(field.getName(), new Binder(lookup.unreflectSetter(accessible(field)), converter));
+                } catch (IllegalAccessException e) {
+                    // not bindable
+                }
+            }
+        }
+        for (Method method : exporterClass.getMethods()) {
+            if (method.getParameterCount() != 1 || !method.getName().startsWith("set") || method.getName().length() < 4
+                    || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            final Function<String, Object> converter = getConverter(method.getParameterTypes()[0]);
+            if (converter == null) {
+                continue;
+            }
+            final String name = Character.toLowerCase(method.getName().charAt(3)) + method.getName().substring(4);
+            try {
+                binders.put(name, new Binder(lookup.unreflect(method), converter));
+            } catch (IllegalAccessException e) {
+                // not bindable
+            }
+        }
+        return ImmutableMap.copyOf(binders);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<String, Object> getConverter(Class<?> type) {
+        if (type.isEnum()) {
+            return value -> Enum.valueOf((Class) type, value.toUpperCase());
+        }
+        return CONVERTERS.get(type);
+    }
+
+    private static <T extends java.lang.reflect.AccessibleObject> T accessible(T accessibleObject) {
+        accessibleObject.setAccessible(true);
+        return accessibleObject;
+    }
+
+    private static class Binder {
+        private final MethodHandle setter;
+        private final Function<String, Object> converter;
+
+        Binder(MethodHandle setter, Function<String, Object> converter) {
+            this.setter = setter;
+            this.converter = converter;
+        }
+    }
+}
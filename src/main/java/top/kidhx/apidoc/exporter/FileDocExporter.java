@@ -1,45 +1,180 @@
 package top.kidhx.apidoc.exporter;
 
-import com.google.common.collect.Lists;
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.google.common.collect.Maps;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.maven.plugin.logging.Log;
+import org.springframework.util.DigestUtils;
 import top.kidhx.apidoc.bo.MarkDownApi;
+import top.kidhx.apidoc.utils.FileUtils;
 
 import java.io.File;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * writes every doc as utf-8 to a temp file in the output directory and atomically moves it into place,
+ * unchanged docs are detected by the content md5 of the generator and never touched
+ *
  * @author HX
  * @date 2022/1/31
  */
-public class FileDocExporter implements DocExporter {
+public class FileDocExporter implements StreamingDocExporter, PartitionedDocExporter {
+    public static final String MANIFEST_FILE_NAME = ".api-doc-manifest.json";
+    private static final String TEMP_SUFFIX = ".tmp";
+
     private String outputPath;
 
     private Log log;
 
+    /**
+     * doc name -> md5 of the content last written
+     */
+    private Map<String, String> manifest;
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
     public FileDocExporter(Log log) {
         this.log = log;
     }
 
+    /**
+     * failures are counted and reported by {@link #finishExport()}, after the other docs are exported
+     */
     @Override
     public void exportApiDoc(List<MarkDownApi> apiDocs) {
-        if (StringUtils.isBlank(this.outputPath)) {
-            this.outputPath = this.getClass().getResource("/").getPath();
+        for (MarkDownApi apiDoc : apiDocs) {
+            if (apiDoc.getMd5() == null) {
+                apiDoc.setMd5(DigestUtils.md5DigestAsHex(apiDoc.getContent().getBytes(StandardCharsets.UTF_8)));
+            }
+            try (Writer writer = openApiDoc(apiDoc)) {
+                writer.write(apiDoc.getContent());
+            } catch (IOException e) {
+                log.error("file exporter:" + apiDoc.getName() + " export failed", e);
+            }
         }
+    }
 
-        for (MarkDownApi apiDoc : apiDocs) {
-            File file = new File(outputPath + apiDoc.getName() + ".md");
-            try (PrintWriter printWriter = new PrintWriter(file)) {
-                printWriter.write(apiDoc.getContent());
-                log.info("file exporter:" + apiDoc.getName() + "export success, path: " + file.getAbsolutePath());
+    @Override
+    public DocWriter openApiDoc(MarkDownApi apiDoc) throws IOException {
+        final Path target = getFile(apiDoc).toPath();
+        final Path directory = target.toAbsolutePath().getParent();
+        Path temp = null;
+        try {
+            Files.createDirectories(directory);
+            temp = FileUtils.createTempFile(directory, "." + target.getFileName(), TEMP_SUFFIX, target);
+            return new AtomicFileWriter(apiDoc, temp, target);
+        } catch (IOException | RuntimeException e) {
+            failed.incrementAndGet();
+            if (temp != null) {
+                Files.deleteIfExists(temp);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * save manifest, then sync the output directory once for all moved files
+     */
+    @Override
+    public void finishExport() throws IOException {
+        final Path directory = new File(getOutputPath()).toPath().toAbsolutePath();
+        Files.createDirectories(directory);
+        final Path manifestFile = directory.resolve(MANIFEST_FILE_NAME);
+        final Path temp = FileUtils.createTempFile(directory, MANIFEST_FILE_NAME, TEMP_SUFFIX, manifestFile);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.write(StandardCharsets.UTF_8.encode(JSON.toJSONString(getManifest(), SerializerFeature.PrettyFormat, SerializerFeature.MapSortField)));
+            channel.force(false);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        move(temp, manifestFile);
+        syncDirectory(directory);
+        log.info("file exporter finished, written:" + written.get() + ", skipped:" + skipped.get() + ", failed:" + failed.get());
+        if (failed.get() > 0) {
+            throw new IOException("file exporter failed to export " + failed.get() + " docs");
+        }
+    }
+
+    /**
+     * move the temp file into place unless the target has the same md5, a doc without md5 is always written
+     */
+    private void commit(MarkDownApi apiDoc, Path temp, Path target) throws IOException {
+        final String md5 = apiDoc.getMd5();
+        if (md5 != null && Files.isRegularFile(target) && md5.equals(getManifest().get(apiDoc.getName()))) {
+            Files.deleteIfExists(temp);
+            skipped.incrementAndGet();
+            log.debug("file exporter:" + apiDoc.getName() + " unchanged, skipped");
+            return;
+        }
+        move(temp, target);
+        if (md5 == null) {
+            getManifest().remove(apiDoc.getName());
+        } else {
+            getManifest().put(apiDoc.getName(), md5);
+        }
+        written.incrementAndGet();
+        log.info("file exporter:" + apiDoc.getName() + "export success, path: " + target.toAbsolutePath());
+    }
+
+    private void move(Path temp, Path target) throws IOException {
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // directories can not be opened on some platforms, e.g. windows
+            log.debug("file exporter: output directory not synced, " + e.getMessage());
+        }
+    }
+
+    private synchronized Map<String, String> getManifest() {
+        if (manifest != null) {
+            return manifest;
+        }
+        manifest = Maps.newConcurrentMap();
+        final File manifestFile = new File(getOutputPath(), MANIFEST_FILE_NAME);
+        if (manifestFile.isFile()) {
+            try {
+                final Map<String, String> previous = JSON.parseObject(new String(Files.readAllBytes(manifestFile.toPath()), StandardCharsets.UTF_8),
+                        new TypeReference<Map<String, String>>() {
+                        });
+                if (previous != null) {
+                    manifest.putAll(previous);
+                }
             } catch (Exception e) {
-                log.error(e);
+                log.warn("file exporter manifest ignored:" + e.getMessage());
             }
         }
+        return manifest;
+    }
+
+    private File getFile(MarkDownApi apiDoc) {
+        return new File(getOutputPath() + apiDoc.getName() + ".md");
     }
 
     public String getOutputPath() {
+        if (StringUtils.isBlank(this.outputPath)) {
+            this.outputPath = this.getClass().getResource("/").getPath();
+        }
         return this.outputPath;
     }
 
@@ -49,11 +184,11 @@ public class FileDocExporter implements DocExporter {
     }
 
     private void validatePath(String outputPath) {
-        if (StringUtils.isBlank(this.outputPath)) {
+        if (StringUtils.isBlank(outputPath)) {
             throw new IllegalArgumentException("outputPath reject empty value");
         }
 
-        final File file = new File(this.outputPath);
+        final File file = new File(outputPath);
 
         if (file.isFile()) {
             throw new IllegalArgumentException("outputPath must be a directory");
@@ -63,4 +198,99 @@ public class FileDocExporter implements DocExporter {
             final boolean mkdirs = file.mkdirs();
         }
     }
+
+    /**
+     * utf-8 writer of one doc, encoded bytes are buffered by the encoder and written to the temp file channel.
+     * on close the temp file is synced and committed, a writer that failed once or was aborted only removes its temp file
+     */
+    private class AtomicFileWriter extends DocWriter {
+        private final MarkDownApi apiDoc;
+        private final Path temp;
+        private final Path target;
+        private final FileChannel channel;
+        private final Writer delegate;
+        private boolean failure;
+        private boolean closed;
+
+        AtomicFileWriter(MarkDownApi apiDoc, Path temp, Path target) throws IOException {
+            this.apiDoc = apiDoc;
+            this.temp = temp;
+            this.target = target;
+            this.channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            this.delegate = new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            try {
+                delegate.write(cbuf, off, len);
+            } catch (IOException e) {
+                failure = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void write(String str, int off, int len) throws IOException {
+            try {
+                delegate.write(str, off, len);
+            } catch (IOException e) {
+                failure = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            try {
+                delegate.flush();
+            } catch (IOException e) {
+                failure = true;
+                throw e;
+            }
+        }
+
+        @Override
+        public void abort() throws IOException {
+            failure = true;
+            close();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            IOException error = null;
+            if (!failure) {
+                try {
+                    delegate.flush();
+                    channel.force(false);
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+            try {
+                delegate.close();
+            } catch (IOException e) {
+                error = error == null ? e : error;
+            }
+            try {
+                if (failure || error != null) {
+                    Files.deleteIfExists(temp);
+                    if (error != null) {
+                        throw error;
+                    }
+                    failed.incrementAndGet();
+                    return;
+                }
+                commit(apiDoc, temp, target);
+            } catch (IOException e) {
+                failed.incrementAndGet();
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+        }
+    }
 }
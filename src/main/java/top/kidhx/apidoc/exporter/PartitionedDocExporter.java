@@ -0,0 +1,15 @@
+package top.kidhx.apidoc.exporter;
+
+/**
+ * exporter that may receive docs from several threads at once, required to use parallelism greater than 1.
+ * {@link #exportApiDoc(java.util.List)} is called concurrently with disjoint parts of the doc list, and
+ * {@link StreamingDocExporter#openApiDoc} concurrently for docs rendered in parallel. every doc must be exported on
+ * its own, the result may not depend on which part or in which order a doc arrives. {@link #finishExport()} is
+ * called once, after all parts are exported. exporters writing one aggregate output from shared state must
+ * synchronize it and keep the output order stable, or not implement this interface
+ *
+ * @author HX
+ * @date 2022/2/17
+ */
+public interface PartitionedDocExporter extends DocExporter {
+}
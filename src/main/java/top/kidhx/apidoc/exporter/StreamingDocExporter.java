@@ -0,0 +1,25 @@
+package top.kidhx.apidoc.exporter;
+
+import top.kidhx.apidoc.bo.MarkDownApi;
+
+import java.io.IOException;
+
+/**
+ * exporter accepting each api doc while it is rendered, so the whole doc list is never held in memory.
+ * {@link #exportApiDoc(java.util.List)} is only used when the docs are exported outside of rendering
+ *
+ * @author HX
+ * @date 2022/2/16
+ */
+public interface StreamingDocExporter extends DocExporter {
+
+    /**
+     * open the sink of one api doc, the doc is rendered into it and then closed by the generator, or aborted
+     * when rendering failed.
+     * only called from one thread at a time unless the exporter is a {@link PartitionedDocExporter}
+     *
+     * @param apiDoc api doc without content
+     * @return writer of the doc
+     */
+    DocWriter openApiDoc(MarkDownApi apiDoc) throws IOException;
+}
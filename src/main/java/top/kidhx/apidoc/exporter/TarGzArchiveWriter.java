@@ -0,0 +1,118 @@
+package top.kidhx.apidoc.exporter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * ustar writer, the content of every entry is compressed as its own gzip member so entries can be compressed
+ * in parallel, its header is a small member written with the entry; concatenated members are one valid gzip stream.
+ * names longer than the header field use a pax header
+ *
+ * @author HX
+ * @date 2022/2/18
+ */
+class TarGzArchiveWriter extends ArchiveWriter {
+
+    private static final int BLOCK_SIZE = 512;
+    private static final int NAME_LENGTH = 100;
+
+    TarGzArchiveWriter(OutputStream out, int level) {
+        super(out, level);
+    }
+
+    @Override
+    Entry compress(byte[] content) throws IOException {
+        final ByteArrayOutputStream tar = new ByteArrayOutputStream(content.length + BLOCK_SIZE);
+        writePadded(tar, content);
+        return new Entry(gzip(tar.toByteArray()), 0, content.length);
+    }
+
+    @Override
+    void write(String name, Entry entry) throws IOException {
+        final ByteArrayOutputStream tar = new ByteArrayOutputStream(3 * BLOCK_SIZE);
+        final byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length > NAME_LENGTH) {
+            writePaxHeader(tar, name);
+        }
+        tar.write(header(nameBytes.length > NAME_LENGTH ? Arrays.copyOf(nameBytes, NAME_LENGTH) : nameBytes, entry.size, (byte) '0'));
+        out.write(gzip(tar.toByteArray()));
+        out.write(entry.data);
+    }
+
+    @Override
+    void finish() throws IOException {
+        out.write(gzip(new byte[2 * BLOCK_SIZE]));
+    }
+
+    private void writePaxHeader(ByteArrayOutputStream tar, String name) throws IOException {
+        final String record = " path=" + name + "\n";
+        final int recordLength = record.getBytes(StandardCharsets.UTF_8).length;
+        int length = recordLength + 1;
+        while (length != recordLength + String.valueOf(length).length()) {
+            length = recordLength + String.valueOf(length).length();
+        }
+        final byte[] pax = (length + record).getBytes(StandardCharsets.UTF_8);
+        tar.write(header("PaxHeader".getBytes(StandardCharsets.US_ASCII), pax.length, (byte) 'x'));
+        writePadded(tar, pax);
+    }
+
+    private static void writePadded(ByteArrayOutputStream tar, byte[] data) {
+        tar.write(data, 0, data.length);
+        final int remainder = data.length % BLOCK_SIZE;
+        if (remainder != 0) {
+            tar.write(new byte[BLOCK_SIZE - remainder], 0, BLOCK_SIZE - remainder);
+        }
+    }
+
+    private static byte[] header(byte[] name, long size, byte type) {
+        final byte[] header = new byte[BLOCK_SIZE];
+        System.arraycopy(name, 0, header, 0, name.length);
+        octal(header, 100, 8, 0644);
+        octal(header, 108, 8, 0);
+        octal(header, 116, 8, 0);
+        octal(header, 124, 12, size);
+        // fixed mtime keeps archives of the same docs identical
+        octal(header, 136, 12, 0);
+        Arrays.fill(header, 148, 156, (byte) ' ');
+        header[156] = type;
+        System.arraycopy("ustar\u000000".getBytes(StandardCharsets.US_ASCII), 0, header, 257, 8);
+        long checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xFF;
+        }
+        octal(header, 148, 7, checksum);
+        return header;
+    }
+
+    /**
+     * zero padded octal followed by nul
+     */
+    private static void octal(byte[] header, int offset, int length, long value) {
+        final String text = Long.toOctalString(value);
+        final int digits = length - 1;
+        if (text.length() > digits) {
+            throw new IllegalStateException("tar header field overflow:" + value);
+        }
+        for (int i = 0; i < digits; i++) {
+            final int index = i - (digits - text.length());
+            header[offset + i] = (byte) (index < 0 ? '0' : text.charAt(index));
+        }
+        header[offset + digits] = 0;
+    }
+
+    private byte[] gzip(byte[] data) throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, data.length / 2));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(data);
+        }
+        return compressed.toByteArray();
+    }
+}
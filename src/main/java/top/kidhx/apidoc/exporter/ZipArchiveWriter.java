@@ -0,0 +1,130 @@
+package top.kidhx.apidoc.exporter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * zip writer for entries deflated in advance, which {@link java.util.zip.ZipOutputStream} can not take.
+ * entries carry a fixed timestamp so the same docs always produce the same archive
+ *
+ * @author HX
+ * @date 2022/2/18
+ */
+class ZipArchiveWriter extends ArchiveWriter {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_SIGNATURE = 0x06054b50;
+    private static final int VERSION = 20;
+    private static final int UTF8_FLAG = 0x0800;
+    private static final int DEFLATED = 8;
+    /**
+     * 1980-01-01 00:00:00 in dos format
+     */
+    private static final int DOS_TIME = 0;
+    private static final int DOS_DATE = (1 << 5) | 1;
+    private static final int MAX_ENTRIES = 0xFFFF;
+    private static final long MAX_SIZE = 0xFFFFFFFFL;
+
+    private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+    private long offset;
+    private int entries;
+
+    ZipArchiveWriter(OutputStream out, int level) {
+        super(out, level);
+    }
+
+    @Override
+    Entry compress(byte[] content) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(content);
+        final Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, content.length / 2));
+            final byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                compressed.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return new Entry(compressed.toByteArray(), crc32.getValue(), content.length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    void write(String entryName, Entry entry) throws IOException {
+        if (entries == MAX_ENTRIES || offset + entry.data.length > MAX_SIZE || entry.size > MAX_SIZE) {
+            throw new IllegalStateException("zip64 is not supported, too many or too large api docs for one archive");
+        }
+        final byte[] name = entryName.getBytes(StandardCharsets.UTF_8);
+        final ByteArrayOutputStream header = new ByteArrayOutputStream(30 + name.length);
+        writeInt(header, LOCAL_HEADER_SIGNATURE);
+        writeShort(header, VERSION);
+        writeShort(header, UTF8_FLAG);
+        writeShort(header, DEFLATED);
+        writeShort(header, DOS_TIME);
+        writeShort(header, DOS_DATE);
+        writeInt(header, entry.crc);
+        writeInt(header, entry.data.length);
+        writeInt(header, entry.size);
+        writeShort(header, name.length);
+        writeShort(header, 0);
+        header.write(name);
+
+        writeInt(centralDirectory, CENTRAL_HEADER_SIGNATURE);
+        writeShort(centralDirectory, VERSION);
+        writeShort(centralDirectory, VERSION);
+        writeShort(centralDirectory, UTF8_FLAG);
+        writeShort(centralDirectory, DEFLATED);
+        writeShort(centralDirectory, DOS_TIME);
+        writeShort(centralDirectory, DOS_DATE);
+        writeInt(centralDirectory, entry.crc);
+        writeInt(centralDirectory, entry.data.length);
+        writeInt(centralDirectory, entry.size);
+        writeShort(centralDirectory, name.length);
+        // extra, comment, disk, internal and external attributes
+        writeShort(centralDirectory, 0);
+        writeShort(centralDirectory, 0);
+        writeShort(centralDirectory, 0);
+        writeShort(centralDirectory, 0);
+        writeInt(centralDirectory, 0);
+        writeInt(centralDirectory, offset);
+        centralDirectory.write(name);
+
+        header.writeTo(out);
+        out.write(entry.data);
+        offset += header.size() + entry.data.length;
+        entries++;
+    }
+
+    @Override
+    void finish() throws IOException {
+        final ByteArrayOutputStream end = new ByteArrayOutputStream(22);
+        writeInt(end, END_SIGNATURE);
+        writeShort(end, 0);
+        writeShort(end, 0);
+        writeShort(end, entries);
+        writeShort(end, entries);
+        writeInt(end, centralDirectory.size());
+        writeInt(end, offset);
+        writeShort(end, 0);
+        centralDirectory.writeTo(out);
+        end.writeTo(out);
+    }
+
+    private static void writeShort(ByteArrayOutputStream out, int value) {
+        out.write(value & 0xFF);
+        out.write((value >>> 8) & 0xFF);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, long value) {
+        writeShort(out, (int) (value & 0xFFFF));
+        writeShort(out, (int) ((value >>> 16) & 0xFFFF));
+    }
+}
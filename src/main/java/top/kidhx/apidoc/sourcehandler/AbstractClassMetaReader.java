@@ -1,26 +1,35 @@
 package top.kidhx.apidoc.sourcehandler;
 
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
-import org.apache.commons.lang3.ArrayUtils;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.ReflectionUtils;
-import org.springframework.web.bind.annotation.RequestBody;
 import top.kidhx.apidoc.bo.*;
-import top.kidhx.apidoc.bo.enums.CommentType;
+import top.kidhx.apidoc.utils.PhaseMetrics;
 
-import javax.validation.constraints.*;
 import java.io.File;
-import java.lang.annotation.Annotation;
+import java.io.IOException;
 import java.lang.reflect.*;
+import java.net.URISyntaxException;
 import java.net.URLClassLoader;
-import java.util.Collection;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static top.kidhx.apidoc.sourcehandler.ClassScanner.SLASH_REGEXP;
 
@@ -31,25 +40,47 @@ import static top.kidhx.apidoc.sourcehandler.ClassScanner.SLASH_REGEXP;
 public abstract class AbstractClassMetaReader {
 
     public static final String VOID = "void";
-    public static Map<String, ClassMeta> foundClasses;
     protected Log log;
     protected ClassLoader classLoader;
-    private final CycleReferenceChecker cycleReferenceChecker;
     private URLClassLoader urlClassLoader;
-    private final SourceCodeReader sourceCodeReader;
+    private SourceCodeReader sourceCodeReader;
     private List<Class<?>> classes;
     private final MavenProject mavenProject;
+    private final RestrictionRegistry restrictionRegistry;
+    private final Map<String, ClassMeta> genericTypeCache = Maps.newConcurrentMap();
+    /**
+     * cycle graph and found classes of the root class being read on this thread
+     */
+    private final ThreadLocal<ReadContext> readContext = ThreadLocal.withInitial(ReadContext::new);
+    private PhaseMetrics phaseMetrics = PhaseMetrics.NONE;
+    private ReactorMetadataCache reactorCache;
+    private String reactorCacheConfig;
+    private volatile Map<String, Artifact> artifactsByFile;
+    private SourceJarCommentIndexer sourceJarIndexer;
 
     public AbstractClassMetaReader(Log log, MavenProject mavenProject, ClassLoader classLoader) {
-        cycleReferenceChecker = new CycleReferenceChecker();
-        foundClasses = Maps.newHashMap();
         sourceCodeReader = new SourceCodeReader();
+        restrictionRegistry = RestrictionRegistry.createDefault();
         this.log = log;
         this.mavenProject = mavenProject;
         this.classLoader = classLoader;
     }
 
     public final List<ClassMeta> getClassMetas(List<Class<?>> classes, String sourceFolder, URLClassLoader urlClassLoader) throws Exception {
+        return getClassMetas(classes, sourceFolder, urlClassLoader, 1);
+    }
+
+    /**
+     * retrieve class metas, classes are fanned out over a bounded pool when threads is greater than 1,
+     * the result keeps the order of the given classes
+     *
+     * @param classes        scanned classes
+     * @param sourceFolder   source folder
+     * @param urlClassLoader project class loader
+     * @param threads        worker threads
+     * @return class metas
+     */
+    public final List<ClassMeta> getClassMetas(List<Class<?>> classes, String sourceFolder, URLClassLoader urlClassLoader, int threads) throws Exception {
         log.info("start scan api!");
         this.classes = classes;
         this.urlClassLoader = urlClassLoader;
@@ -57,17 +88,115 @@ public abstract class AbstractClassMetaReader {
         if (CollectionUtils.isEmpty(classes)) {
             return Lists.newArrayList();
         }
-        List<ClassMeta> result = Lists.newArrayList();
-        for (Class<?> aClass : classes) {
-            if (needRetrieve(aClass)) {
-                log.info("reading class:" + aClass.getName() + "...");
-                final ClassMeta classMeta = retrieveClassMeta(aClass, sourceFolder);
+        if (threads <= 1 || classes.size() == 1) {
+            List<ClassMeta> result = Lists.newArrayList();
+            for (Class<?> aClass : classes) {
+                final ClassMeta classMeta = readClassMeta(aClass, sourceFolder);
                 if (classMeta != null) {
                     result.add(classMeta);
                 }
             }
+            return result;
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, classes.size()),
+                new ThreadFactoryBuilder().setNameFormat("api-doc-meta-%d").setDaemon(true).build());
+        try {
+            List<Future<ClassMeta>> futures = Lists.newArrayList();
+            for (Class<?> aClass : classes) {
+                futures.add(executor.submit(() -> readClassMeta(aClass, sourceFolder)));
+            }
+            List<ClassMeta> result = Lists.newArrayList();
+            for (Future<ClassMeta> future : futures) {
+                final ClassMeta classMeta = getResult(future);
+                if (classMeta != null) {
+                    result.add(classMeta);
+                }
+            }
+            return result;
+        } finally {
+            executor.shutdownNow();
         }
-        return result;
+    }
+
+    /**
+     * read a root class with a fresh cycle graph, so where a cycle reference is cut only depends on the class
+     * itself and not on classes read before or concurrently
+     */
+    private ClassMeta readClassMeta(Class<?> aClass, String sourceFolder) throws Exception {
+        readContext.set(new ReadContext());
+        try (PhaseMetrics.Sample ignored = phaseMetrics.start(PhaseMetrics.META_EXTRACTION, aClass.getName())) {
+            if (needRetrieve(aClass)) {
+                log.info("reading class:" + aClass.getName() + "...");
+                return retrieveClassMeta(aClass, sourceFolder);
+            }
+            return null;
+        } finally {
+            readContext.remove();
+            afterRetrieve();
+        }
+    }
+
+    private ClassMeta getResult(Future<ClassMeta> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * forget class metas read through the previous class loader before reading classes of a new one,
+     * parsed source comments are kept, they are cached by file and last modified time. cycle checks and found
+     * classes live in the read context of one root class and need no reset
+     *
+     * @param classLoader new project class loader
+     */
+    public void reset(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+        genericTypeCache.clear();
+    }
+
+    public RestrictionRegistry getRestrictionRegistry() {
+        return restrictionRegistry;
+    }
+
+    public AbstractClassMetaReader setPhaseMetrics(PhaseMetrics phaseMetrics) {
+        this.phaseMetrics = phaseMetrics;
+        sourceCodeReader.setPhaseMetrics(phaseMetrics);
+        return this;
+    }
+
+    /**
+     * share class metas of dependency artifacts and parsed comments with other modules of the session
+     *
+     * @param reactorCache session cache
+     * @param config       hash of the configuration affecting class metas, such as restriction templates
+     * @return this
+     */
+    public AbstractClassMetaReader setReactorCache(ReactorMetadataCache reactorCache, String config) {
+        this.reactorCache = reactorCache;
+        this.reactorCacheConfig = config;
+        this.sourceCodeReader = new SourceCodeReader(reactorCache.getSourceComments()).setPhaseMetrics(phaseMetrics);
+        return this;
+    }
+
+    /**
+     * look up comments of dependency classes without local source in the index of their sources jar
+     *
+     * @param sourceJarIndexer indexer of sources jars
+     * @return this
+     */
+    public AbstractClassMetaReader setSourceJarIndexer(SourceJarCommentIndexer sourceJarIndexer) {
+        this.sourceJarIndexer = sourceJarIndexer;
+        return this;
+    }
+
+    public CacheStats getSourceCacheStats() {
+        return sourceCodeReader.getCacheStats();
     }
 
     protected abstract ClassMeta retrieveClassMeta(Class<?> aClass, String sourceFolder) throws Exception;
@@ -82,6 +211,12 @@ public abstract class AbstractClassMetaReader {
         return false;
     }
 
+    /**
+     * release per class state, called on the same thread after each class is read
+     */
+    protected void afterRetrieve() {
+    }
+
     private String getResourcePath(Class<?> aClass, String sourceFolder) {
         final String artifactId = mavenProject.getArtifact().getArtifactId();
         if (!artifactId.contains("-")) {
@@ -107,19 +242,42 @@ public abstract class AbstractClassMetaReader {
     }
 
     protected ClassMeta doRetrieveClassMeta(Class<?> aClass, String sourceFolder, boolean needMethod, boolean needField, Map<String, ClassMeta> parameterizedMap) throws Exception {
+        final String sharedKey = !needMethod && needField && CollectionUtils.isEmpty(parameterizedMap) ? getSharedKey(aClass) : null;
+        if (sharedKey == null) {
+            return buildClassMeta(aClass, sourceFolder, needMethod, needField, parameterizedMap);
+        }
+        final ClassMeta shared = reactorCache.getClassMeta(sharedKey);
+        final ReadContext context = readContext.get();
+        if (shared != null) {
+            context.foundClasses.put(aClass.getName(), shared);
+            return shared;
+        }
+        final int cycleHitsBefore = context.cycleHits;
+        final ClassMeta classMeta = buildClassMeta(aClass, sourceFolder, false, true, parameterizedMap);
+        // a class meta cut by a cycle reference depends on the path it was reached through
+        if (context.cycleHits == cycleHitsBefore) {
+            reactorCache.putClassMeta(sharedKey, classMeta);
+        }
+        return classMeta;
+    }
+
+    private ClassMeta buildClassMeta(Class<?> aClass, String sourceFolder, boolean needMethod, boolean needField, Map<String, ClassMeta> parameterizedMap) throws Exception {
         final File source = new File(sourceFolder);
         if (source.isFile() || !source.exists()) {
             throw new IllegalStateException("incorrect source folder");
         }
 
+        final ReadContext context = readContext.get();
+        final int cycleHitsBefore = context.cycleHits;
         final File file = new File(getSourcePath(aClass, sourceFolder));
         Map<String, Comment> commentMap = Maps.newHashMap();
         ClassMeta classMeta = new ClassMeta()
                 .setClassName(aClass.getName())
                 .setClassType(aClass);
-        if (file.exists()) {
-            classMeta.setDesc(sourceCodeReader.resolveClassComment(file));
-            commentMap = sourceCodeReader.resolveComment(file, CommentType.API);
+        final SourceComment sourceComment = findSourceComment(aClass, file);
+        if (sourceComment != null) {
+            classMeta.setDesc(sourceComment.getClassComment());
+            commentMap = sourceComment.getMethodComments();
         }
         if (isCustomType(aClass)) {
             if (needField || aClass.isEnum()) {
@@ -129,10 +287,72 @@ public abstract class AbstractClassMetaReader {
                 classMeta.setApis(listApiInfos(aClass, source, commentMap, parameterizedMap));
             }
         }
-        foundClasses.put(aClass.getName(), classMeta);
+        if (context.cycleHits != cycleHitsBefore || context.isPathDependent(parameterizedMap)) {
+            context.pathDependent.add(classMeta);
+        }
+        context.foundClasses.put(aClass.getName(), classMeta);
         return classMeta;
     }
 
+    /**
+     * key of a class in the reactor cache, null when the cache is off or the class is not loaded from a dependency
+     * artifact: project classes change between runs and are never shared
+     */
+    private String getSharedKey(Class<?> aClass) {
+        if (reactorCache == null) {
+            return null;
+        }
+        final Artifact artifact = getArtifact(aClass);
+        return artifact == null ? null : reactorCache.getKey(artifact, aClass.getName(), reactorCacheConfig);
+    }
+
+    /**
+     * comments of a class, parsed from its local source file, or looked up in the index of the sources jar of
+     * the dependency it is loaded from
+     *
+     * @return comments, null when there is no source
+     */
+    private SourceComment findSourceComment(Class<?> aClass, File file) throws IOException {
+        if (file.exists()) {
+            return sourceCodeReader.resolve(file);
+        }
+        if (sourceJarIndexer == null) {
+            return null;
+        }
+        final Artifact artifact = getArtifact(aClass);
+        return artifact == null ? null : sourceJarIndexer.find(artifact, aClass.getName());
+    }
+
+    /**
+     * dependency artifact a class is loaded from, null for project and jdk classes
+     */
+    private Artifact getArtifact(Class<?> aClass) {
+        if (aClass.getProtectionDomain() == null || aClass.getProtectionDomain().getCodeSource() == null
+                || aClass.getProtectionDomain().getCodeSource().getLocation() == null) {
+            return null;
+        }
+        try {
+            final File location = new File(aClass.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return getArtifactsByFile().get(location.getAbsolutePath());
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Map<String, Artifact> getArtifactsByFile() {
+        Map<String, Artifact> result = artifactsByFile;
+        if (result == null) {
+            result = Maps.newHashMap();
+            for (Artifact artifact : mavenProject.getArtifacts()) {
+                if (artifact.getFile() != null) {
+                    result.put(artifact.getFile().getAbsolutePath(), artifact);
+                }
+            }
+            artifactsByFile = result;
+        }
+        return result;
+    }
+
     protected List<Api> listApiInfos(Class<?> aClass, File source, Map<String, Comment> commentMap, Map<String, ClassMeta> parameterizedMap) throws Exception {
         List<Api> result = Lists.newArrayList();
         final Method[] methods = ReflectionUtils.getAllDeclaredMethods(aClass);
@@ -160,193 +380,175 @@ public abstract class AbstractClassMetaReader {
         fieldMeta.setName(returnType.getName());
         fieldMeta.setTypeName(genericReturnType.getTypeName());
         fieldMeta.setType(VOID.equalsIgnoreCase(genericReturnType.getTypeName()) ? null : getInnerClassMeta(aClass, returnType, source, genericReturnType));
-        fieldMeta.setDesc(methodComment == null || methodComment.getReturnComment() == null ? "暂无" : methodComment.getReturnComment().getValue());
+        fieldMeta.setDesc(methodComment == null || methodComment.getReturnComment() == null || methodComment.getReturnComment().getValue() == null ?
+                "暂无" : methodComment.getReturnComment().getValue());
         return fieldMeta;
     }
 
-    private ClassMeta getInnerClassMeta(Class<?> owner, Class<?> aClass, File source, Type genericReturnType) throws Exception {
+    private ClassMeta getInnerClassMeta(Class<?> owner, Class<?> aClass, File source, Type genericType) throws Exception {
+        return getInnerClassMeta(owner, aClass, source, genericType, null);
+    }
+
+    private ClassMeta getInnerClassMeta(Class<?> owner, Class<?> aClass, File source, Type genericType, Map<String, ClassMeta> typeBindings) throws Exception {
         if (isCustomType(aClass)) {
-            if (!cycleReferenceChecker.isCycled(owner, aClass)) {
-                Map<String, ClassMeta> parameterizedMap = null;
-                if (genericReturnType instanceof ParameterizedType) {
-                    parameterizedMap = getParameterizedMap(owner, source, aClass, genericReturnType);
+            final ReadContext context = readContext.get();
+            if (!context.cycleReferenceChecker.isCycled(owner, aClass)) {
+                if (genericType instanceof ParameterizedType) {
+                    return resolveCustomGenericType(owner, aClass, (ParameterizedType) genericType, source, typeBindings);
                 }
-                return doRetrieveClassMeta(aClass, source.getAbsolutePath(), false, true, parameterizedMap);
+                return doRetrieveClassMeta(aClass, source.getAbsolutePath(), false, true, null);
             } else {
-                final ClassMeta classMeta = foundClasses.get(aClass.getName());
+                context.cycleHits++;
+                final ClassMeta classMeta = context.foundClasses.get(aClass.getName());
                 if (classMeta == null) {
-                    return new ClassMeta().setClassName(aClass.getName()).setClassType(aClass);
+                    final ClassMeta cut = new ClassMeta().setClassName(aClass.getName()).setClassType(aClass);
+                    context.pathDependent.add(cut);
+                    return cut;
                 }
                 return classMeta;
             }
-        } else if (genericReturnType != null && isGenericType(genericReturnType.getTypeName())) {
-            if (!cycleReferenceChecker.isCycled(owner, aClass) || foundClasses.get(aClass.getName()) == null) {
-                final ClassMeta classMeta = new ClassMeta();
-                classMeta.setGenericTypes(listGenericType(aClass, genericReturnType.getTypeName(), source));
-                classMeta.setClassName(((ParameterizedType) genericReturnType).getTypeName());
-                classMeta.setClassType((Class<?>) (((ParameterizedType) genericReturnType).getRawType()));
-                return classMeta;
-            } else {
-                return foundClasses.get(aClass.getName());
-            }
+        } else if (genericType instanceof ParameterizedType) {
+            return resolveGenericType(owner, (ParameterizedType) genericType, source, typeBindings);
         }
         return new ClassMeta().setClassName(aClass.getName()).setClassType(aClass);
     }
 
-    private List<ClassMeta> listGenericType(Class<?> genericOwner, String typeName, File source) throws Exception {
-        List<ClassMeta> classMetas = Lists.newArrayList();
-        final String tempName = typeName.substring(typeName.indexOf("<") + 1, typeName.length() - 1);
-        if ("?".equalsIgnoreCase(tempName)) {
-            return null;
-        }
-        List<String> parameterizedNameList = getParameterizedNameList(tempName);
-        for (String className : parameterizedNameList) {
-            final ClassMeta classMeta = new ClassMeta();
-            if (isGenericType(className)) {
-                final String classOriginalName = className.substring(0, className.indexOf("<")).trim();
-                classMeta.setGenericTypes(listGenericType(genericOwner, className, source));
-                classMeta.setClassType(urlClassLoader.loadClass(classOriginalName));
-                classMeta.setClassName(classOriginalName);
-                classMetas.add(classMeta);
-            } else {
-                Class<?> aClass = null;
-                try {
-                    aClass = urlClassLoader.loadClass(className.trim());
-                } catch (ClassNotFoundException e) {
-                    continue;
-                }
-                final ClassMeta innerClassMeta = getInnerClassMeta(genericOwner, aClass, source, null);
-                classMetas.add(innerClassMeta);
-            }
-        }
-        return classMetas;
+    /**
+     * resolve a parameterized non custom type (List&lt;T&gt;, Map&lt;K, V&gt;...) by walking its type arguments,
+     * the result is memoized by its canonical type name unless it depends on the path it was reached through
+     */
+    private ClassMeta resolveGenericType(Class<?> owner, ParameterizedType genericType, File source, Map<String, ClassMeta> typeBindings) throws Exception {
+        final String typeName = toTypeName(genericType, typeBindings);
+        final ReadContext context = readContext.get();
+        final boolean cacheable = !context.isPathDependent(typeBindings);
+        final ClassMeta cached = cacheable ? genericTypeCache.get(typeName) : null;
+        if (cached != null) {
+            return cached;
+        }
+        final int cycleHitsBefore = context.cycleHits;
+        final ClassMeta classMeta = new ClassMeta()
+                .setClassName(typeName)
+                .setClassType((Class<?>) genericType.getRawType())
+                .setGenericTypes(listGenericType(owner, genericType, source, typeBindings));
+        memoize(context, cycleHitsBefore, cacheable, typeName, classMeta);
+        return classMeta;
     }
 
-    private List<String> getParameterizedNameList(String tempName) {
-        tempName = tempName.trim();
-        if (StringUtils.isBlank(tempName)) {
-            return Lists.newArrayList();
-        }
-        if (tempName.startsWith(",")) {
-            tempName = tempName.substring(tempName.indexOf(",") + 1);
-        }
-        if (tempName.startsWith(",")) {
-            tempName = tempName.substring(tempName.indexOf(">") + 1);
-        }
-        if (!tempName.contains(",")) {
-            return Lists.newArrayList(tempName);
-        }
-        tempName = tempName.trim();
-        if (!tempName.contains("<")) {
-            return Lists.newArrayList(tempName.split(","));
-        }
-        if (!checkNested(tempName)) {
-            return Lists.newArrayList(tempName);
-        }
+    /**
+     * resolve a parameterized custom type (Result&lt;Page&lt;T&gt;&gt;...) with its type arguments bound,
+     * memoized like {@link #resolveGenericType}
+     */
+    private ClassMeta resolveCustomGenericType(Class<?> owner, Class<?> aClass, ParameterizedType genericType, File source, Map<String, ClassMeta> typeBindings) throws Exception {
+        final String typeName = toTypeName(genericType, typeBindings);
+        final ReadContext context = readContext.get();
+        final boolean cacheable = !context.isPathDependent(typeBindings);
+        final ClassMeta cached = cacheable ? genericTypeCache.get(typeName) : null;
+        if (cached != null) {
+            return cached;
+        }
+        final int cycleHitsBefore = context.cycleHits;
+        final Map<String, ClassMeta> parameterizedMap = getParameterizedMap(owner, source, aClass, genericType, typeBindings);
+        final ClassMeta classMeta = doRetrieveClassMeta(aClass, source.getAbsolutePath(), false, true, parameterizedMap);
+        if (CollectionUtils.isEmpty(parameterizedMap)) {
+            // nothing bound, the plain class meta which may be shared
+            return classMeta;
+        }
+        classMeta.setTypeName(typeName);
+        memoize(context, cycleHitsBefore, cacheable, typeName, classMeta);
+        return classMeta;
+    }
 
-        List<String> result = Lists.newArrayList();
-        if (tempName.indexOf(",") > tempName.indexOf("<")) {
-            String firstGenericType = getFirstGenericType(tempName);
-            result.add(firstGenericType);
-            result.addAll(getNames(tempName.substring(tempName.indexOf(firstGenericType) + firstGenericType.length())));
+    /**
+     * a meta built while a cycle reference was cut, or from path dependent type arguments, is only valid for this path
+     */
+    private void memoize(ReadContext context, int cycleHitsBefore, boolean cacheable, String typeName, ClassMeta classMeta) {
+        if (context.cycleHits != cycleHitsBefore || !cacheable) {
+            context.pathDependent.add(classMeta);
         } else {
-            result.add(tempName.substring(0, tempName.indexOf(",")));
-            result.addAll(getNames(tempName.substring(tempName.indexOf(",") + 1)));
+            genericTypeCache.putIfAbsent(typeName, classMeta);
         }
-        return result;
     }
 
-    private Collection<String> getNames(String name) {
-        name = name.trim();
-        if (StringUtils.isBlank(name)) {
-            return Lists.newArrayList();
-        }
-        if (name.startsWith(",")) {
-            name = name.substring(name.indexOf(",") + 1);
+    private List<ClassMeta> listGenericType(Class<?> genericOwner, ParameterizedType genericType, File source, Map<String, ClassMeta> typeBindings) throws Exception {
+        final Type[] actualTypeArguments = genericType.getActualTypeArguments();
+        if (actualTypeArguments.length == 1 && "?".equals(actualTypeArguments[0].getTypeName())) {
+            return null;
         }
-        if (name.startsWith(">")) {
-            name = name.substring(name.indexOf(">") + 1);
+        List<ClassMeta> classMetas = Lists.newArrayList();
+        for (Type actualTypeArgument : actualTypeArguments) {
+            final ClassMeta classMeta = resolveTypeArgument(genericOwner, actualTypeArgument, source, typeBindings);
+            if (classMeta != null) {
+                classMetas.add(classMeta);
+            }
         }
-        if (!name.contains(",")) {
-            return Lists.newArrayList(name);
+        return classMetas;
+    }
+
+    private ClassMeta resolveTypeArgument(Class<?> genericOwner, Type typeArgument, File source, Map<String, ClassMeta> typeBindings) throws Exception {
+        if (typeArgument instanceof ParameterizedType) {
+            return getInnerClassMeta(genericOwner, (Class<?>) ((ParameterizedType) typeArgument).getRawType(), source, typeArgument, typeBindings);
         }
-        name = name.trim();
-        if (!name.contains("<")) {
-            return Lists.newArrayList(name.split(","));
+        if (typeArgument instanceof Class) {
+            final Class<?> aClass = (Class<?>) typeArgument;
+            return aClass.isArray() ? null : getInnerClassMeta(genericOwner, aClass, source, null, typeBindings);
         }
-        if (!checkNested(name)) {
-            return Lists.newArrayList(name);
+        if (typeArgument instanceof TypeVariable) {
+            return typeBindings == null ? null : typeBindings.get(((TypeVariable<?>) typeArgument).getName());
         }
-
-        List<String> result = Lists.newArrayList();
-        if (name.indexOf(",") > name.indexOf("<")) {
-            String firstGenericType = getFirstGenericType(name);
-            result.add(firstGenericType);
-            result.addAll(getNames(name.substring(name.indexOf(firstGenericType) + firstGenericType.length())));
-        } else {
-            result.add(name.substring(0, name.indexOf(",")));
-            result.addAll(getNames(name.substring(name.indexOf(",") + 1)));
+        if (typeArgument instanceof WildcardType) {
+            final Type[] upperBounds = ((WildcardType) typeArgument).getUpperBounds();
+            if (upperBounds.length == 1 && upperBounds[0] != Object.class) {
+                return resolveTypeArgument(genericOwner, upperBounds[0], source, typeBindings);
+            }
         }
-        return result;
+        return null;
     }
 
-    private String getFirstGenericType(String name) {
-        final char[] chars = name.toCharArray();
-        int leftBlockNum = 0;
-        int rightBlockNum = 0;
-        int targetNum = 0;
-
-        for (int i = 0; i < chars.length; i++) {
-            char aChar = chars[i];
-            if (aChar == '<') {
-                leftBlockNum++;
-            }
-            if (aChar == '>') {
-                rightBlockNum++;
+    private String toTypeName(Type type, Map<String, ClassMeta> typeBindings) {
+        if (type instanceof TypeVariable) {
+            final ClassMeta bound = typeBindings == null ? null : typeBindings.get(((TypeVariable<?>) type).getName());
+            if (bound == null) {
+                return type.getTypeName();
             }
-            if (leftBlockNum == rightBlockNum && leftBlockNum != 0) {
-                targetNum = i;
-                break;
+            // a bound custom type is only named by its raw class, its own type arguments tell Page<A> from Page<B>
+            return bound.getTypeName() == null ? bound.getClassName() : bound.getTypeName();
+        }
+        if (type instanceof ParameterizedType) {
+            final StringBuilder builder = new StringBuilder(((Class<?>) ((ParameterizedType) type).getRawType()).getName());
+            builder.append("<");
+            final Type[] actualTypeArguments = ((ParameterizedType) type).getActualTypeArguments();
+            for (int i = 0; i < actualTypeArguments.length; i++) {
+                if (i > 0) {
+                    builder.append(", ");
+                }
+                builder.append(toTypeName(actualTypeArguments[i], typeBindings));
             }
+            return builder.append(">").toString();
         }
-        return name.substring(0, targetNum + 1);
-    }
-
-    private boolean checkNested(String tempName) {
-        if (!tempName.contains("<")) {
-            return false;
-        }
-        if (tempName.contains(",") && tempName.indexOf(",") < tempName.indexOf("<")) {
-            return true;
-        }
-        final char[] chars = tempName.toCharArray();
-        int count = 0;
-        for (char aChar : chars) {
-            if ('<' == aChar) {
-                count++;
+        if (type instanceof WildcardType) {
+            final WildcardType wildcardType = (WildcardType) type;
+            if (wildcardType.getLowerBounds().length > 0) {
+                return "? super " + toTypeName(wildcardType.getLowerBounds()[0], typeBindings);
+            }
+            if (wildcardType.getUpperBounds().length == 0 || wildcardType.getUpperBounds()[0] == Object.class) {
+                return "?";
             }
+            return "? extends " + toTypeName(wildcardType.getUpperBounds()[0], typeBindings);
         }
-        return count > 1;
-    }
-
-    private boolean isGenericType(String typeName) {
-        if (StringUtils.isBlank(typeName)) {
-            return false;
+        if (type instanceof GenericArrayType) {
+            return toTypeName(((GenericArrayType) type).getGenericComponentType(), typeBindings) + "[]";
         }
-        return typeName.contains("<") || typeName.endsWith(">");
+        return type.getTypeName();
     }
 
-    private Map<String, ClassMeta> getParameterizedMap(Class<?> rootClass, File source, Class<?> ownerType, Type genericType) throws Exception {
+    private Map<String, ClassMeta> getParameterizedMap(Class<?> rootClass, File source, Class<?> ownerType, Type genericType, Map<String, ClassMeta> typeBindings) throws Exception {
         Map<String, ClassMeta> result = Maps.newHashMap();
-        final String typeName = genericType.getTypeName();
         final TypeVariable<? extends Class<?>>[] typeParameters = ownerType.getTypeParameters();
-        final ParameterizedType genericType1 = (ParameterizedType) genericType;
-        final Type[] actualTypeArguments = genericType1.getActualTypeArguments();
+        final Type[] actualTypeArguments = ((ParameterizedType) genericType).getActualTypeArguments();
         for (int i = 0; i < typeParameters.length; i++) {
-            if (actualTypeArguments[i] instanceof Class) {
-                result.put(typeParameters[i].getName(), getInnerClassMeta(rootClass, (Class<?>) actualTypeArguments[i], source, null));
-            } else if (actualTypeArguments[i] instanceof ParameterizedType) {
-                result.put(typeParameters[i].getName(), getInnerClassMeta(rootClass, (Class<?>) ((ParameterizedType) actualTypeArguments[i]).getRawType(), source, actualTypeArguments[i]));
+            final ClassMeta classMeta = resolveTypeArgument(rootClass, actualTypeArguments[i], source, typeBindings);
+            if (classMeta != null) {
+                result.put(typeParameters[i].getName(), classMeta);
             }
         }
         return result;
@@ -363,185 +565,30 @@ public abstract class AbstractClassMetaReader {
             fieldMeta.setName(getParameterName(parameter));
             fieldMeta.setTypeName(parameterizedType.getTypeName());
             fieldMeta.setDesc(parameterComments.get(parameter.getName()) == null ? "暂无" : parameterComments.get(parameter.getName()).getValue());
-            fieldMeta.setRestriction(findRestrictions(parameter));
+            fieldMeta.setRestriction(restrictionRegistry.findRestrictions(parameter));
             fieldMeta.setType(getInnerClassMeta(aClass, parameter.getType(), source, parameterizedType));
             result.add(fieldMeta);
         }
         return result;
     }
 
-    private String findRestrictions(AnnotatedElement parameter) throws NoSuchMethodException, InvocationTargetException, IllegalAccessException {
-        final StringBuilder builder = new StringBuilder();
-
-        if (ArrayUtils.isEmpty(parameter.getAnnotations())) {
-            return StringUtils.EMPTY;
-        }
-
-        final Annotation notNull =  getAnnotation(parameter.getAnnotations(), NotNull.class);
-        if (notNull != null) {
-            builder.append("`非空`<br/>");
-        }
-
-        final Annotation notBlank = getAnnotation(parameter.getAnnotations(), NotBlank.class);
-        final Annotation hibernateNotBlank = getAnnotation(parameter.getAnnotations(),org.hibernate.validator.constraints.NotBlank.class);
-        if (notBlank != null || hibernateNotBlank != null) {
-            builder.append("`非空字符串`<br/>");
-        }
-
-        final Annotation doNull = getAnnotation(parameter.getAnnotations(), Null.class);
-        if (doNull != null) {
-            builder.append("`必须为空值`<br/>");
-        }
-
-        final Annotation digits = getAnnotation(parameter.getAnnotations(), Digits.class);
-        if (digits != null) {
-            builder.append("`必须为数字-");
-            final Object integer = digits.annotationType().getMethod("integer").invoke(digits);
-            final Object fraction = digits.annotationType().getMethod("fraction").invoke(digits);
-            builder.append("整数最大值为:").append(integer).append("位");
-            builder.append("小数位最多为:").append(fraction).append("位`<br/>");
-        }
-
-        final Annotation assertFalse = getAnnotation(parameter.getAnnotations(), AssertFalse.class);
-        if (assertFalse != null) {
-            builder.append("`必须为false`<br/>");
-        }
-
-        final Annotation assertTrue = getAnnotation(parameter.getAnnotations(), AssertTrue.class);
-        if (assertTrue != null) {
-            builder.append("`必须为true`<br/>");
-        }
-
-        final Annotation max = getAnnotation(parameter.getAnnotations(), Max.class);
-        if (max != null) {
-            builder.append("`整形，最小值为");
-            builder.append(max.annotationType().getMethod("value").invoke(max));
-            builder.append("`<br/>");
-        }
-
-        final Annotation min = getAnnotation(parameter.getAnnotations(), Min.class);
-        if (min != null) {
-            builder.append("`整形，最大值为");
-            builder.append(min.annotationType().getMethod("value").invoke(min));
-            builder.append("`<br/>");
-        }
-
-        final Annotation past = getAnnotation(parameter.getAnnotations(), Past.class);
-        if (past != null) {
-            builder.append("`必须为过去的时间`<br/>");
-        }
-
-        final Annotation pattern = getAnnotation(parameter.getAnnotations(), Pattern.class);
-        if (pattern != null) {
-            builder.append("`请匹配正则表达式:");
-            builder.append(pattern.annotationType().getMethod("regexp").invoke(pattern));
-            builder.append("`<br/>");
-        }
-
-        final Annotation size = getAnnotation(parameter.getAnnotations(), Size.class);
-        if (size != null) {
-            builder.append("`最大容量为:");
-            builder.append(size.annotationType().getMethod("max").invoke(size));
-            builder.append(",最小容量为:");
-            builder.append(size.annotationType().getMethod("min").invoke(size));
-            builder.append("`<br/>");
-        }
-
-        final Annotation decimalMax = getAnnotation(parameter.getAnnotations(), DecimalMax.class);
-        if (decimalMax != null) {
-            builder.append("`浮点型最大值为:");
-            builder.append(decimalMax.annotationType().getMethod("value").invoke(decimalMax));
-            builder.append("是否包含边界:");
-            builder.append(decimalMax.annotationType().getMethod("inclusive").invoke(decimalMax));
-            builder.append("`<br/>");
-        }
-
-        final Annotation decimalMin = getAnnotation(parameter.getAnnotations(), DecimalMin.class);
-        if (decimalMin != null) {
-            builder.append("`浮点型最小值为:");
-            builder.append(decimalMin.annotationType().getMethod("value").invoke(decimalMin));
-            builder.append("是否包含边界:");
-            builder.append(decimalMin.annotationType().getMethod("inclusive").invoke(decimalMin));
-            builder.append("`<br/>");
-        }
-
-        final Annotation future = getAnnotation(parameter.getAnnotations(), Future.class);
-        if (future != null) {
-            builder.append("`必须为未来的时间`<br/>");
-        }
-
-        final Annotation pastOrPresent = getAnnotation(parameter.getAnnotations(), PastOrPresent.class);
-        if (pastOrPresent != null) {
-            builder.append("`必须为当前或者过去的时间`<br/>");
-        }
-
-        final Annotation negative = getAnnotation(parameter.getAnnotations(), Negative.class);
-        if (negative != null) {
-            builder.append("`必须为负数`<br/>");
-        }
-
-        final Annotation negativeOrZero = getAnnotation(parameter.getAnnotations(), NegativeOrZero.class);
-        if (negativeOrZero != null) {
-            builder.append("`必须为零或者负数`<br/>");
-        }
-
-        final Annotation positive = getAnnotation(parameter.getAnnotations(), Positive.class);
-        if (positive != null) {
-            builder.append("`必须为正数`<br/>");
-        }
-
-        final Annotation positiveOrZero = getAnnotation(parameter.getAnnotations(), PositiveOrZero.class);
-        if (positiveOrZero != null) {
-            builder.append("`必须为零或者整数`<br/>");
-        }
-
-        final Annotation notEmpty = getAnnotation(parameter.getAnnotations(), NotEmpty.class);
-        if (notEmpty != null) {
-            builder.append("`数组或字符串不能null, 并且容量必须大于0`<br/>");
-        }
-
-        final Annotation email = getAnnotation(parameter.getAnnotations(), Email.class);
-        if (email != null) {
-            builder.append("`必须为电子邮件地址格式`<br/>");
-        }
-
-        final Annotation requestBody = getAnnotation(parameter.getAnnotations(), RequestBody.class);
-        if (requestBody != null) {
-            builder.append("`请从requestBody传入参数`<br/>");
-        }
-        final String restrictions = builder.toString();
-        if (StringUtils.isBlank(restrictions)) {
-            return StringUtils.EMPTY;
-        }
-        return restrictions.substring(0, restrictions.lastIndexOf("<br/>"));
-    }
-
-    private Annotation getAnnotation(Annotation[] annotations, Class<? extends Annotation> annotationClass){
-        for (Annotation annotation : annotations) {
-            if(annotationClass.getName().equalsIgnoreCase(annotation.annotationType().getName())){
-                return annotation;
-            }
-        }
-        return null;
-    }
-
     private List<FieldMeta> listFieldMetas(Class<?> aClass, File source, Map<String, ClassMeta> parameterizedMap) throws Exception {
         if (!isCustomType(aClass)) {
             return null;
         }
         Map<String, Comment> fieldCommentMap = getFieldCommentMap(aClass, source);
         List<FieldMeta> result = doGetFieldMetas(aClass, source, parameterizedMap, fieldCommentMap);
-        addFieldInSuperClass(aClass, source, result);
+        addFieldInSuperClass(aClass, source, result, parameterizedMap);
         return CollectionUtils.isEmpty(result) ? null : result;
     }
 
-    private void addFieldInSuperClass(Class<?> aClass, File source, List<FieldMeta> result) throws Exception {
+    private void addFieldInSuperClass(Class<?> aClass, File source, List<FieldMeta> result, Map<String, ClassMeta> parameterizedMap) throws Exception {
         final Class<?> superclass = aClass.getSuperclass();
         if (superclass != null && Object.class != superclass) {
             final Type genericSuperclass = aClass.getGenericSuperclass();
             ClassMeta classMeta;
             if (genericSuperclass instanceof ParameterizedType) {
-                classMeta = doRetrieveClassMeta(superclass, source.getAbsolutePath(), false, true, getParameterizedMap(aClass, source, superclass, genericSuperclass));
+                classMeta = doRetrieveClassMeta(superclass, source.getAbsolutePath(), false, true, getParameterizedMap(aClass, source, superclass, genericSuperclass, parameterizedMap));
             } else {
                 classMeta = doRetrieveClassMeta(superclass, source.getAbsolutePath(), false, true, null);
             }
@@ -566,50 +613,20 @@ public abstract class AbstractClassMetaReader {
 
     private FieldMeta getFieldInfo(Class<?> rootClass, Field field, Map<String, ClassMeta> parameterizedMap, File source, Map<String, Comment> fieldCommentMap) throws Exception {
         final FieldMeta fieldMeta = new FieldMeta();
+        final Type genericType = field.getGenericType();
+        final ClassMeta boundType = parameterizedMap != null && genericType instanceof TypeVariable ?
+                parameterizedMap.get(((TypeVariable<?>) genericType).getName()) : null;
         fieldMeta.setName(field.getName());
-        fieldMeta.setTypeName(parameterizedMap != null && parameterizedMap.get(field.getGenericType().getTypeName()) != null ?
-                parameterizedMap.get(field.getGenericType().getTypeName()).getClassName() :
-                processTypeName(field.getGenericType().getTypeName(), parameterizedMap));
+        fieldMeta.setTypeName(toTypeName(genericType, parameterizedMap));
         fieldMeta.setDesc(fieldCommentMap == null || fieldCommentMap.get(field.getName()) == null ? "暂无" : fieldCommentMap.get(field.getName()).getValue());
-        fieldMeta.setRestriction(findRestrictions(field));
+        fieldMeta.setRestriction(restrictionRegistry.findRestrictions(field));
 
         if (!field.isEnumConstant()) {
-            fieldMeta.setType(parameterizedMap != null && parameterizedMap.get(field.getGenericType().getTypeName()) != null ?
-                    parameterizedMap.get(field.getGenericType().getTypeName()) :
-                    getInnerClassMeta(rootClass,
-                            parameterizedMap != null && parameterizedMap.get(field.getGenericType().getTypeName()) != null ? parameterizedMap.get(field.getGenericType().getTypeName()).getClassType() : field.getType(),
-                            source, processGenericType(fieldMeta, field)));
+            fieldMeta.setType(boundType != null ? boundType : getInnerClassMeta(rootClass, field.getType(), source, genericType, parameterizedMap));
         }
         return fieldMeta;
     }
 
-    private Type processGenericType(FieldMeta fieldMeta, Field field) {
-        final Type genericType = field.getGenericType();
-        if (genericType instanceof ParameterizedType) {
-            final ParameterizedType parameterizedType = (ParameterizedType) genericType;
-            final ParameterizedTypeImpl make = ParameterizedTypeImpl.make((Class<?>) parameterizedType.getRawType(), parameterizedType.getActualTypeArguments(), parameterizedType.getOwnerType());
-            make.setName(fieldMeta.getTypeName());
-            return make;
-        } else {
-            return genericType;
-        }
-    }
-
-    private String processTypeName(String typeName, Map<String, ClassMeta> parameterizedMap) {
-        if (parameterizedMap == null) {
-            return typeName;
-        }
-
-        final String tempName1 = typeName.substring(typeName.indexOf("<") + 1, typeName.lastIndexOf(">"));
-        final String tempName2 = typeName.substring(0, typeName.indexOf("<"));
-        String tempName = StringUtils.EMPTY;
-
-        for (Map.Entry<String, ClassMeta> metaEntry : parameterizedMap.entrySet()) {
-            tempName = tempName1.replace(metaEntry.getKey(), metaEntry.getValue().getClassName());
-        }
-        return tempName2 + "<" + tempName + ">";
-    }
-
     private boolean needNotGetDetail(Field declaredField, Class<?> aClass) {
         if (aClass.isEnum()) {
             return declaredField.isSynthetic() || !declaredField.isEnumConstant();
@@ -620,12 +637,11 @@ public abstract class AbstractClassMetaReader {
     }
 
     private Map<String, Comment> getFieldCommentMap(Class<?> aClass, File source) throws Exception {
-        Map<String, Comment> fieldCommentMap = Maps.newHashMap();
-        final File file = new File(getSourcePath(aClass, source.getAbsolutePath()));
-        if (file.exists()) {
-            fieldCommentMap = sourceCodeReader.resolveComment(file, aClass.isEnum() ? CommentType.ENUM : CommentType.FIELD);
+        final SourceComment sourceComment = findSourceComment(aClass, new File(getSourcePath(aClass, source.getAbsolutePath())));
+        if (sourceComment == null) {
+            return Maps.newHashMap();
         }
-        return fieldCommentMap;
+        return aClass.isEnum() ? sourceComment.getEnumComments() : sourceComment.getFieldComments();
     }
 
     protected boolean isCustomType(Class<?> aClass) {
@@ -648,6 +664,33 @@ public abstract class AbstractClassMetaReader {
 
     }
 
+    /**
+     * custom superclasses and interfaces of a class, their fields and methods are read into the meta of the class
+     *
+     * @param aClass class
+     * @return custom supertypes, nearest first
+     */
+    public List<Class<?>> listCustomSupertypes(Class<?> aClass) {
+        List<Class<?>> result = Lists.newArrayList();
+        final Deque<Class<?>> pending = new ArrayDeque<>();
+        pending.add(aClass);
+        while (!pending.isEmpty()) {
+            final Class<?> type = pending.poll();
+            if (type.getSuperclass() != null) {
+                pending.add(type.getSuperclass());
+            }
+            pending.addAll(Arrays.asList(type.getInterfaces()));
+            if (type != aClass && isCustomType(type) && !result.contains(type)) {
+                result.add(type);
+            }
+        }
+        return result;
+    }
+
+    public File getSourceFile(Class<?> aClass, String sourceFolder) {
+        return new File(getSourcePath(aClass, sourceFolder));
+    }
+
     private String getSourcePath(Class<?> aClass, String sourceFolder) {
         String name = aClass.getName();
         String path = getResourcePath(aClass, sourceFolder);
@@ -659,5 +702,28 @@ public abstract class AbstractClassMetaReader {
         return path + ((path.endsWith(File.separator) ? "" : File.separator)) + replace + ".java";
     }
 
+    /**
+     * state of reading one root class, confined to the reading thread
+     */
+    private static class ReadContext {
+        private final CycleReferenceChecker cycleReferenceChecker = new CycleReferenceChecker();
+        private final Map<String, ClassMeta> foundClasses = Maps.newHashMap();
+        /**
+         * cycle references cut so far, a meta built while this grows depends on the path and is not cached
+         */
+        private int cycleHits;
+        /**
+         * metas which depend on the path they were reached through: cut ones, and ones built from them
+         */
+        private final Set<ClassMeta> pathDependent = Sets.newIdentityHashSet();
+
+        private boolean isPathDependent(Map<String, ClassMeta> typeBindings) {
+            if (CollectionUtils.isEmpty(typeBindings) || pathDependent.isEmpty()) {
+                return false;
+            }
+            return typeBindings.values().stream().anyMatch(pathDependent::contains);
+        }
+    }
+
 
 }
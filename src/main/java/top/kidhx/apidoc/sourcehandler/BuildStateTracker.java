@@ -0,0 +1,205 @@
+package top.kidhx.apidoc.sourcehandler;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.apache.maven.plugin.logging.Log;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.FileCopyUtils;
+import top.kidhx.apidoc.bo.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+
+/**
+ * tracks fingerprints of documented classes between runs, so unchanged classes can be skipped
+ *
+ * @author HX
+ * @date 2022/2/12
+ */
+public class BuildStateTracker {
+
+    public static final String STATE_FILE_NAME = "api-doc-state.json";
+    private static final String EMPTY_HASH = "";
+
+    private final Log log;
+    private final File stateFile;
+    private final String configHash;
+    private final AbstractClassMetaReader classMetaReader;
+    private final String sourceFolder;
+    private final ClassLoader classLoader;
+    private final Map<String, String> fingerprints = Maps.newConcurrentMap();
+    private BuildState previousState;
+    private BuildState currentState;
+
+    public BuildStateTracker(Log log, File outputDirectory, String configHash, AbstractClassMetaReader classMetaReader, String sourceFolder, ClassLoader classLoader) {
+        this.log = log;
+        this.stateFile = new File(outputDirectory, STATE_FILE_NAME);
+        this.configHash = configHash;
+        this.classMetaReader = classMetaReader;
+        this.sourceFolder = sourceFolder;
+        this.classLoader = classLoader;
+    }
+
+    public void load() {
+        previousState = new BuildState();
+        currentState = new BuildState().setConfigHash(configHash);
+        if (!stateFile.isFile()) {
+            return;
+        }
+        try {
+            final BuildState state = JSON.parseObject(new String(Files.readAllBytes(stateFile.toPath()), StandardCharsets.UTF_8), BuildState.class);
+            if (state != null && configHash.equals(state.getConfigHash()) && state.getClasses() != null) {
+                previousState = state;
+            } else {
+                log.info("plugin configuration changed, regenerate all api doc");
+            }
+        } catch (Exception e) {
+            log.warn("build state broken, regenerate all api doc:" + e.getMessage());
+        }
+    }
+
+    /**
+     * filter classes whose .class, .java or referenced types changed since last run
+     *
+     * @param classes scanned classes
+     * @return classes need to be regenerated
+     */
+    public List<Class<?>> filterChanged(List<Class<?>> classes) {
+        List<Class<?>> result = Lists.newArrayList();
+        for (Class<?> aClass : classes) {
+            final ClassState classState = previousState.getClasses().get(aClass.getName());
+            if (classState != null && isUpToDate(aClass, classState)) {
+                currentState.getClasses().put(aClass.getName(), classState);
+            } else {
+                result.add(aClass);
+            }
+        }
+        log.info("incremental build: " + (classes.size() - result.size()) + " classes unchanged, " + result.size() + " classes to read");
+        return result;
+    }
+
+    /**
+     * record fingerprints of regenerated class metas
+     *
+     * @param classMetas regenerated class metas
+     */
+    public void record(List<ClassMeta> classMetas) {
+        for (ClassMeta classMeta : classMetas) {
+            final Class<?> aClass = classMeta.getClassType();
+            if (aClass == null) {
+                continue;
+            }
+            final ClassState classState = new ClassState()
+                    .setClassHash(classHash(aClass))
+                    .setSourceHash(sourceHash(aClass));
+            final Set<Class<?>> types = Sets.newHashSet();
+            collectTypes(classMeta, types, Collections.newSetFromMap(new IdentityHashMap<>()));
+            types.remove(aClass);
+            for (Class<?> type : types) {
+                classState.getDependencies().put(type.getName(), fingerprint(type));
+            }
+            currentState.getClasses().put(aClass.getName(), classState);
+        }
+    }
+
+    public void save() {
+        try {
+            Files.createDirectories(stateFile.getParentFile().toPath());
+            Files.write(stateFile.toPath(), JSON.toJSONString(currentState, SerializerFeature.PrettyFormat, SerializerFeature.MapSortField).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            log.warn("build state save failed:" + e.getMessage());
+        }
+    }
+
+    private boolean isUpToDate(Class<?> aClass, ClassState classState) {
+        if (!Objects.equals(classState.getClassHash(), classHash(aClass)) || !Objects.equals(classState.getSourceHash(), sourceHash(aClass))) {
+            return false;
+        }
+        if (CollectionUtils.isEmpty(classState.getDependencies())) {
+            return true;
+        }
+        for (Map.Entry<String, String> dependency : classState.getDependencies().entrySet()) {
+            if (!Objects.equals(dependency.getValue(), fingerprint(dependency.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void collectTypes(ClassMeta classMeta, Set<Class<?>> types, Set<ClassMeta> visited) {
+        if (classMeta == null || !visited.add(classMeta)) {
+            return;
+        }
+        if (classMetaReader.isCustomType(classMeta.getClassType())) {
+            types.add(classMeta.getClassType());
+            // inherited fields and methods are part of the meta
+            types.addAll(classMetaReader.listCustomSupertypes(classMeta.getClassType()));
+        }
+        if (classMeta.getGenericTypes() != null) {
+            for (ClassMeta genericType : classMeta.getGenericTypes()) {
+                collectTypes(genericType, types, visited);
+            }
+        }
+        if (classMeta.getClassFieldMetas() != null) {
+            for (FieldMeta fieldMeta : classMeta.getClassFieldMetas()) {
+                collectTypes(fieldMeta.getType(), types, visited);
+            }
+        }
+        if (classMeta.getApis() != null) {
+            for (Api api : classMeta.getApis()) {
+                if (api.getReturnValue() != null) {
+                    collectTypes(api.getReturnValue().getType(), types, visited);
+                }
+                if (api.getParameters() != null) {
+                    for (FieldMeta parameter : api.getParameters()) {
+                        collectTypes(parameter.getType(), types, visited);
+                    }
+                }
+            }
+        }
+    }
+
+    private String fingerprint(String className) {
+        try {
+            return fingerprint(Class.forName(className, false, classLoader));
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private String fingerprint(Class<?> aClass) {
+        return fingerprints.computeIfAbsent(aClass.getName(), k -> classHash(aClass) + "/" + sourceHash(aClass));
+    }
+
+    private String classHash(Class<?> aClass) {
+        final URL resource = classLoader.getResource(aClass.getName().replace(".", "/") + ".class");
+        if (resource == null) {
+            return EMPTY_HASH;
+        }
+        try {
+            return DigestUtils.md5DigestAsHex(FileCopyUtils.copyToByteArray(resource.openStream()));
+        } catch (IOException e) {
+            return EMPTY_HASH;
+        }
+    }
+
+    private String sourceHash(Class<?> aClass) {
+        try {
+            final File file = classMetaReader.getSourceFile(aClass, sourceFolder);
+            if (!file.isFile()) {
+                return EMPTY_HASH;
+            }
+            return DigestUtils.md5DigestAsHex(Files.readAllBytes(file.toPath()));
+        } catch (Exception e) {
+            return EMPTY_HASH;
+        }
+    }
+}
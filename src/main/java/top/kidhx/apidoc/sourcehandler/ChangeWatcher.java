@@ -0,0 +1,92 @@
+package top.kidhx.apidoc.sourcehandler;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * watches directory trees for file changes, directories created later are watched as well
+ *
+ * @author HX
+ * @date 2022/2/23
+ */
+public class ChangeWatcher implements Closeable {
+
+    private final Log log;
+    private final List<Path> roots;
+    private final WatchService watchService;
+
+    public ChangeWatcher(Log log, List<Path> roots) throws IOException {
+        this.log = log;
+        this.roots = Lists.newArrayList();
+        this.watchService = FileSystems.getDefault().newWatchService();
+        for (Path root : roots) {
+            if (Files.isDirectory(root)) {
+                this.roots.add(root);
+                registerAll(root);
+            } else {
+                log.warn("watch directory not found:" + root);
+            }
+        }
+    }
+
+    /**
+     * block until files change, then wait until nothing changes for quietMillis, so one compile is one batch.
+     * the roots are returned when events were lost, the caller should rescan them
+     *
+     * @param quietMillis quiet period closing a batch
+     * @return changed files and directories
+     */
+    public Set<Path> take(long quietMillis) throws InterruptedException, IOException {
+        final Set<Path> changed = Sets.newHashSet();
+        WatchKey key = watchService.take();
+        while (key != null) {
+            final Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (event.kind() == OVERFLOW) {
+                    log.warn("file events lost, rescan all watched directories");
+                    changed.addAll(roots);
+                    continue;
+                }
+                final Path file = directory.resolve((Path) event.context());
+                changed.add(file);
+                if (event.kind() == ENTRY_CREATE && Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+                    registerAll(file);
+                    // files written before the directory is registered raise no event
+                    try (Stream<Path> files = Files.walk(file)) {
+                        files.forEach(changed::add);
+                    }
+                }
+            }
+            key.reset();
+            key = watchService.poll(quietMillis, TimeUnit.MILLISECONDS);
+        }
+        return changed;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    private void registerAll(Path root) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
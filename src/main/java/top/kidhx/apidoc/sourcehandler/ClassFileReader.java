@@ -0,0 +1,204 @@
+package top.kidhx.apidoc.sourcehandler;
+
+import com.google.common.collect.Sets;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+/**
+ * reads access flags and class level annotations from raw .class bytes, without loading the class
+ *
+ * @author HX
+ * @date 2022/2/13
+ */
+public class ClassFileReader {
+
+    public static final int ACC_INTERFACE = 0x0200;
+    private static final int MAGIC = 0xCAFEBABE;
+    private static final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_FLOAT = 4;
+    private static final int CONSTANT_LONG = 5;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_STRING = 8;
+    private static final int CONSTANT_FIELDREF = 9;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_INTERFACE_METHODREF = 11;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+    private static final int CONSTANT_METHOD_HANDLE = 15;
+    private static final int CONSTANT_METHOD_TYPE = 16;
+    private static final int CONSTANT_DYNAMIC = 17;
+    private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+    private static final int CONSTANT_MODULE = 19;
+    private static final int CONSTANT_PACKAGE = 20;
+
+    private ClassFileReader() {
+    }
+
+    public static ClassFileHeader read(Path classFile) throws IOException {
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(classFile))) {
+            return read(new DataInputStream(inputStream));
+        }
+    }
+
+    private static ClassFileHeader read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("not a class file");
+        }
+        // minor and major version
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+
+        final String[] utf8Constants = readConstantPool(in);
+        final int accessFlags = in.readUnsignedShort();
+        // this class, super class
+        in.readUnsignedShort();
+        in.readUnsignedShort();
+        skipFully(in, 2L * in.readUnsignedShort());
+        skipMembers(in);
+        skipMembers(in);
+
+        final Set<String> annotations = Sets.newHashSet();
+        final int attributeCount = in.readUnsignedShort();
+        for (int i = 0; i < attributeCount; i++) {
+            final String name = utf8Constants[in.readUnsignedShort()];
+            final long length = in.readInt() & 0xFFFFFFFFL;
+            if (RUNTIME_VISIBLE_ANNOTATIONS.equals(name)) {
+                final int annotationCount = in.readUnsignedShort();
+                for (int j = 0; j < annotationCount; j++) {
+                    annotations.add(readAnnotation(in, utf8Constants));
+                }
+            } else {
+                skipFully(in, length);
+            }
+        }
+        return new ClassFileHeader(accessFlags, annotations);
+    }
+
+    private static String[] readConstantPool(DataInputStream in) throws IOException {
+        final int count = in.readUnsignedShort();
+        final String[] utf8Constants = new String[count];
+        for (int i = 1; i < count; i++) {
+            final int tag = in.readUnsignedByte();
+            switch (tag) {
+                case CONSTANT_UTF8:
+                    utf8Constants[i] = in.readUTF();
+                    break;
+                case CONSTANT_CLASS:
+                case CONSTANT_STRING:
+                case CONSTANT_METHOD_TYPE:
+                case CONSTANT_MODULE:
+                case CONSTANT_PACKAGE:
+                    skipFully(in, 2);
+                    break;
+                case CONSTANT_METHOD_HANDLE:
+                    skipFully(in, 3);
+                    break;
+                case CONSTANT_INTEGER:
+                case CONSTANT_FLOAT:
+                case CONSTANT_FIELDREF:
+                case CONSTANT_METHODREF:
+                case CONSTANT_INTERFACE_METHODREF:
+                case CONSTANT_NAME_AND_TYPE:
+                case CONSTANT_DYNAMIC:
+                case CONSTANT_INVOKE_DYNAMIC:
+                    skipFully(in, 4);
+                    break;
+                case CONSTANT_LONG:
+                case CONSTANT_DOUBLE:
+                    skipFully(in, 8);
+                    // 8 byte constants take two slots
+                    i++;
+                    break;
+                default:
+                    throw new IOException("unknown constant pool tag:" + tag);
+            }
+        }
+        return utf8Constants;
+    }
+
+    private static void skipMembers(DataInputStream in) throws IOException {
+        final int memberCount = in.readUnsignedShort();
+        for (int i = 0; i < memberCount; i++) {
+            // access flags, name, descriptor
+            skipFully(in, 6);
+            final int attributeCount = in.readUnsignedShort();
+            for (int j = 0; j < attributeCount; j++) {
+                in.readUnsignedShort();
+                skipFully(in, in.readInt() & 0xFFFFFFFFL);
+            }
+        }
+    }
+
+    private static String readAnnotation(DataInputStream in, String[] utf8Constants) throws IOException {
+        final String type = utf8Constants[in.readUnsignedShort()];
+        final int pairCount = in.readUnsignedShort();
+        for (int i = 0; i < pairCount; i++) {
+            in.readUnsignedShort();
+            skipElementValue(in, utf8Constants);
+        }
+        return type;
+    }
+
+    private static void skipElementValue(DataInputStream in, String[] utf8Constants) throws IOException {
+        final int tag = in.readUnsignedByte();
+        switch (tag) {
+            case 'e':
+                skipFully(in, 4);
+                break;
+            case '@':
+                readAnnotation(in, utf8Constants);
+                break;
+            case '[':
+                final int valueCount = in.readUnsignedShort();
+                for (int i = 0; i < valueCount; i++) {
+                    skipElementValue(in, utf8Constants);
+                }
+                break;
+            default:
+                // constant value or class info index
+                skipFully(in, 2);
+        }
+    }
+
+    private static void skipFully(DataInputStream in, long length) throws IOException {
+        while (length > 0) {
+            final long skipped = in.skip(length);
+            if (skipped <= 0) {
+                in.readByte();
+                length--;
+            } else {
+                length -= skipped;
+            }
+        }
+    }
+
+    /**
+     * header information of a class file
+     */
+    public static class ClassFileHeader {
+        private final int accessFlags;
+        private final Set<String> annotationDescriptors;
+
+        ClassFileHeader(int accessFlags, Set<String> annotationDescriptors) {
+            this.accessFlags = accessFlags;
+            this.annotationDescriptors = annotationDescriptors;
+        }
+
+        public boolean isInterface() {
+            return (accessFlags & ACC_INTERFACE) != 0;
+        }
+
+        public boolean isAnnotationPresent(Class<?> annotationClass) {
+            return annotationDescriptors.contains("L" + annotationClass.getName().replace('.', '/') + ";");
+        }
+    }
+}
@@ -1,20 +1,22 @@
 package top.kidhx.apidoc.sourcehandler;
 
-import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
-import org.apache.commons.lang3.ArrayUtils;
-import org.apache.maven.artifact.Artifact;
 import org.apache.maven.plugin.logging.Log;
-import org.apache.maven.project.MavenProject;
 import org.springframework.stereotype.Component;
+import top.kidhx.apidoc.bo.enums.ClassInfoReaderType;
+import top.kidhx.apidoc.utils.PhaseMetrics;
 
 import java.io.File;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.net.MalformedURLException;
-import java.net.URL;
-import java.net.URLClassLoader;
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author HX
@@ -24,86 +26,120 @@ import java.util.*;
 public class ClassScanner {
 
     private static final String CLASS_POSTFIX = ".class";
-    private static final String DOT = ".";
-    private static final String SEPARATOR = File.separator;
+    private static final char DOT = '.';
     public static final String SLASH_REGEXP = "[\\\\/]";
 
     private final Log log;
+    private PhaseMetrics phaseMetrics = PhaseMetrics.NONE;
 
     public ClassScanner(Log log) {
         this.log = log;
     }
 
-    public Set<Class<?>> loadClass(String outputDir, String packageName, MavenProject mavenProject, URLClassLoader classLoader) throws MalformedURLException, ClassNotFoundException, NoSuchMethodException {
+    public ClassScanner setPhaseMetrics(PhaseMetrics phaseMetrics) {
+        this.phaseMetrics = phaseMetrics;
+        return this;
+    }
+
+    public Set<Class<?>> loadClass(String outputDir, String packageName, ClassInfoReaderType readerType, ClassLoader classLoader) throws IOException, ClassNotFoundException {
         Set<Class<?>> result = Sets.newHashSet();
-        File file = new File(outputDir + "/classes");
+        File file = getClassesDir(outputDir);
         if (!file.exists() || !file.isDirectory()) {
             throw new IllegalStateException("invalid outputDir:" + outputDir);
         }
-        result.addAll(loadProjectClasses(file, packageName, mavenProject, classLoader));
+        result.addAll(loadProjectClasses(file, packageName, readerType, classLoader));
         return result;
     }
 
-    private Collection<Class<?>> loadProjectClasses(File file, String packagePrefix, MavenProject mavenProject, URLClassLoader classLoader) throws MalformedURLException, NoSuchMethodException, ClassNotFoundException {
-        Set<String> classFullNames = Sets.newHashSet();
-        getClassFullNames(file, packagePrefix, classFullNames);
-
-        HashSet<Class<?>> classes = Sets.newHashSet();
-        List<URL> dependencyURLs = getDependencyURLs(mavenProject);
-
-        dependencyURLs.add(file.toURI().toURL());
+    public static File getClassesDir(String outputDir) {
+        return new File(outputDir + "/classes");
+    }
 
-        Method addURL = URLClassLoader.class.getDeclaredMethod("addURL", URL.class);
-        addURL.setAccessible(true);
-        dependencyURLs.forEach(URL -> {
-            try {
-                addURL.invoke(classLoader, URL);
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                e.printStackTrace();
-            }
-        });
+    private Collection<Class<?>> loadProjectClasses(File file, String packagePrefix, ClassInfoReaderType readerType, ClassLoader classLoader) throws IOException, ClassNotFoundException {
+        final Set<String> classFullNames;
+        try (PhaseMetrics.Sample ignored = phaseMetrics.start(PhaseMetrics.SCAN)) {
+            classFullNames = getClassFullNames(file.toPath(), packagePrefix, readerType);
+        }
 
-        for (String classFullName : classFullNames) {
-            if (classFullName.startsWith(packagePrefix.replaceAll(SLASH_REGEXP, "."))) {
-                final Class<?> aClass = classLoader.loadClass(classFullName);
-                classes.add(aClass);
+        HashSet<Class<?>> classes = Sets.newHashSet();
+        try (PhaseMetrics.Sample ignored = phaseMetrics.start(PhaseMetrics.CLASS_LOAD)) {
+            for (String classFullName : classFullNames) {
+                classes.add(classLoader.loadClass(classFullName));
             }
         }
         return classes;
     }
 
-    private List<URL> getDependencyURLs(MavenProject mavenProject) {
-        final Set<Artifact> artifacts = mavenProject.getArtifacts();
-        final ArrayList<URL> urls = Lists.newArrayList();
-        for (Artifact artifact : artifacts) {
-            try {
-                urls.add(artifact.getFile().toURI().toURL());
-            } catch (MalformedURLException e) {
-                log.warn("artifact:" + artifact.getArtifactId() + "not found");
-            }
+    /**
+     * walk classes/packagePath only, class names are built from path segments relative to the classes root
+     */
+    private Set<String> getClassFullNames(Path classesRoot, String packagePrefix, ClassInfoReaderType readerType) throws IOException {
+        final Set<String> classFullNames = Sets.newHashSet();
+        final Path packageDir = classesRoot.resolve(packagePrefix);
+        if (!Files.isDirectory(packageDir)) {
+            log.warn("package directory not found:" + packageDir);
+            return classFullNames;
         }
-        return urls;
-    }
 
-    private void getClassFullNames(File dir, String packagePrefix, Set<String> classFullNames) {
-        if (dir.isFile()) {
-            if (dir.getName().endsWith(CLASS_POSTFIX) && dir.getAbsolutePath().contains(packagePrefix)) {
-                classFullNames.add((getClassFullName(dir, packagePrefix)));
+        final long start = System.nanoTime();
+        final AtomicLong visitedFiles = new AtomicLong();
+        final AtomicLong classFiles = new AtomicLong();
+        Files.walkFileTree(packageDir, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                visitedFiles.incrementAndGet();
+                final String fileName = file.getFileName().toString();
+                // package-info and module-info are not loadable classes
+                if (attrs.isRegularFile() && fileName.endsWith(CLASS_POSTFIX) && !fileName.contains("-")) {
+                    classFiles.incrementAndGet();
+                    if (isCandidate(file, readerType)) {
+                        classFullNames.add(getClassFullName(classesRoot.relativize(file)));
+                    }
+                }
+                return FileVisitResult.CONTINUE;
             }
-            return;
-        }
+        });
+        final long costMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), 1);
+        log.info("scanned " + visitedFiles.get() + " files in " + costMillis + "ms (" + visitedFiles.get() * 1000 / costMillis
+                + " files/sec), " + classFullNames.size() + " of " + classFiles.get() + " classes are candidates");
+        return classFullNames;
+    }
 
-        final File[] files = dir.listFiles();
-        if (ArrayUtils.isEmpty(files)) {
-            return;
+    /**
+     * decide from the raw class bytes whether the class can be documented, so other classes are never loaded
+     */
+    private boolean isCandidate(Path classFile, ClassInfoReaderType readerType) {
+        if (readerType == null) {
+            return true;
         }
-        for (File file : files) {
-            getClassFullNames(file, packagePrefix, classFullNames);
+        try {
+            final ClassFileReader.ClassFileHeader header = ClassFileReader.read(classFile);
+            switch (readerType) {
+                case SPRING_CONTROLLER:
+                    for (Class<? extends Annotation> controllerAnnotation : WebClassMetaReader.CONTROLLER_ANNOTATIONS) {
+                        if (header.isAnnotationPresent(controllerAnnotation)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                case INTERFACE:
+                    return header.isInterface();
+                default:
+                    return true;
+            }
+        } catch (IOException e) {
+            log.warn("class file unreadable, fallback to class loading:" + classFile + ", " + e.getMessage());
+            return true;
         }
     }
 
-    private String getClassFullName(File file, String packagePrefix) {
-        return file.getAbsolutePath().substring(file.getAbsolutePath().indexOf(packagePrefix),
-                file.getAbsolutePath().length() - CLASS_POSTFIX.length()).replace(SEPARATOR, DOT);
+    private String getClassFullName(Path relativePath) {
+        final StringBuilder builder = new StringBuilder();
+        final int nameCount = relativePath.getNameCount();
+        for (int i = 0; i < nameCount - 1; i++) {
+            builder.append(relativePath.getName(i).toString()).append(DOT);
+        }
+        final String fileName = relativePath.getName(nameCount - 1).toString();
+        return builder.append(fileName, 0, fileName.length() - CLASS_POSTFIX.length()).toString();
     }
 }
@@ -0,0 +1,220 @@
+package top.kidhx.apidoc.sourcehandler;
+
+import com.google.common.collect.Maps;
+import top.kidhx.apidoc.bo.Comment;
+import top.kidhx.apidoc.bo.MethodComment;
+import top.kidhx.apidoc.bo.SourceComment;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * read only, memory mapped index of comments, key is class name. layout:
+ * <pre>
+ * header   magic, version, entry count, slot count
+ * slots    slot count * (key hash, record offset), open addressing, offset 0 is an empty slot
+ * records  key, class comment, method comments, field comments, enum comments
+ * </pre>
+ * strings are an int byte length, -1 for null, followed by utf-8 bytes. a lookup probes the slots of the key hash
+ * and decodes a single record, nothing is parsed or loaded up front
+ *
+ * @author HX
+ * @date 2022/2/25
+ */
+public class CommentIndex {
+
+    private static final int MAGIC = 0x41444349;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 8;
+
+    private final File file;
+    private final MappedByteBuffer buffer;
+    private final int entries;
+    private final int slots;
+
+    private CommentIndex(File file, MappedByteBuffer buffer) {
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalStateException("not a comment index");
+        }
+        this.file = file;
+        this.buffer = buffer;
+        this.entries = buffer.getInt(8);
+        this.slots = buffer.getInt(12);
+        if (Integer.bitCount(slots) != 1 || HEADER_SIZE + (long) slots * SLOT_SIZE > buffer.limit()) {
+            throw new IllegalStateException("comment index broken");
+        }
+    }
+
+    /**
+     * map an index file, the mapping stays valid after the file channel is closed
+     *
+     * @param file index file
+     * @return index
+     */
+    public static CommentIndex open(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new CommentIndex(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * write comments of classes to an index file
+     *
+     * @param file     index file
+     * @param comments class name -> comments
+     */
+    public static void write(File file, Map<String, SourceComment> comments) throws IOException {
+        int slots = 2;
+        while (slots < comments.size() * 2) {
+            slots <<= 1;
+        }
+        final int[] hashes = new int[slots];
+        final int[] offsets = new int[slots];
+        final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(records);
+        final int recordsStart = HEADER_SIZE + slots * SLOT_SIZE;
+        for (Map.Entry<String, SourceComment> entry : comments.entrySet()) {
+            final int hash = entry.getKey().hashCode();
+            int slot = hash & (slots - 1);
+            while (offsets[slot] != 0) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            hashes[slot] = hash;
+            offsets[slot] = recordsStart + out.size();
+            writeRecord(out, entry.getKey(), entry.getValue());
+        }
+        out.flush();
+
+        try (DataOutputStream indexOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file.toPath())))) {
+            indexOut.writeInt(MAGIC);
+            indexOut.writeInt(VERSION);
+            indexOut.writeInt(comments.size());
+            indexOut.writeInt(slots);
+            for (int i = 0; i < slots; i++) {
+                indexOut.writeInt(hashes[i]);
+                indexOut.writeInt(offsets[i]);
+            }
+            records.writeTo(indexOut);
+        }
+    }
+
+    /**
+     * comments of a class
+     *
+     * @param className class name
+     * @return comments, null when the class is not indexed
+     * @throws BufferUnderflowException  when the record is truncated
+     * @throws IndexOutOfBoundsException when the record is corrupted
+     */
+    public SourceComment find(String className) {
+        final int hash = className.hashCode();
+        final ByteBuffer reader = buffer.duplicate();
+        int slot = hash & (slots - 1);
+        for (int probes = 0; probes < slots; probes++) {
+            final int position = HEADER_SIZE + slot * SLOT_SIZE;
+            final int offset = reader.getInt(position + 4);
+            if (offset == 0) {
+                return null;
+            }
+            if (offset < 0 || offset >= reader.limit()) {
+                throw new IndexOutOfBoundsException("record offset out of index:" + offset);
+            }
+            if (reader.getInt(position) == hash) {
+                reader.position(offset);
+                if (className.equals(readString(reader))) {
+                    return readComments(reader);
+                }
+            }
+            slot = (slot + 1) & (slots - 1);
+        }
+        return null;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public int size() {
+        return entries;
+    }
+
+    private static void writeRecord(DataOutputStream out, String className, SourceComment sourceComment) throws IOException {
+        writeString(out, className);
+        writeString(out, sourceComment.getClassComment());
+        out.writeInt(sourceComment.getMethodComments().size());
+        for (Map.Entry<String, Comment> entry : sourceComment.getMethodComments().entrySet()) {
+            final MethodComment methodComment = (MethodComment) entry.getValue();
+            writeString(out, entry.getKey());
+            writeString(out, methodComment.getValue());
+            writeComments(out, methodComment.getParameterComment());
+            writeString(out, methodComment.getReturnComment() == null ? null : methodComment.getReturnComment().getValue());
+        }
+        writeComments(out, sourceComment.getFieldComments());
+        writeComments(out, sourceComment.getEnumComments());
+    }
+
+    private static void writeComments(DataOutputStream out, Map<String, Comment> comments) throws IOException {
+        out.writeInt(comments.size());
+        for (Map.Entry<String, Comment> entry : comments.entrySet()) {
+            writeString(out, entry.getKey());
+            writeString(out, entry.getValue().getValue());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static SourceComment readComments(ByteBuffer reader) {
+        final SourceComment sourceComment = new SourceComment().setClassComment(readString(reader));
+        final int methods = reader.getInt();
+        for (int i = 0; i < methods; i++) {
+            final String name = readString(reader);
+            final MethodComment methodComment = new MethodComment();
+            methodComment.setValue(readString(reader));
+            methodComment.setParameterComment(readComments(reader, Maps.newHashMap()));
+            final String returnComment = readString(reader);
+            // no @return, the reader falls back to its default description
+            methodComment.setReturnComment(returnComment == null ? null : new Comment().setValue(returnComment));
+            sourceComment.getMethodComments().put(name, methodComment);
+        }
+        readComments(reader, sourceComment.getFieldComments());
+        readComments(reader, sourceComment.getEnumComments());
+        return sourceComment;
+    }
+
+    private static Map<String, Comment> readComments(ByteBuffer reader, Map<String, Comment> comments) {
+        final int size = reader.getInt();
+        for (int i = 0; i < size; i++) {
+            comments.put(readString(reader), new Comment().setValue(readString(reader)));
+        }
+        return comments;
+    }
+
+    private static String readString(ByteBuffer reader) {
+        final int length = reader.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > reader.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        final byte[] bytes = new byte[length];
+        reader.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,69 +1,182 @@
 package top.kidhx.apidoc.sourcehandler;
 
 import com.google.common.collect.Maps;
-import com.google.common.collect.Sets;
-import org.springframework.util.CollectionUtils;
 
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.Map;
-import java.util.Set;
 
 /**
+ * type dependency graph of one root class, confined to the thread reading it.
+ * types are interned to int ids, strongly connected components are maintained in a union-find
+ * as edges are added, so a check on a known edge is a near constant time lookup
+ *
  * @author HX
  * @date 2022/1/31
  */
 public class CycleReferenceChecker {
 
-    public final Map<String, Set<String>> dependenciesMap;
-    private final Set<Class<?>> scannedClasses;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<String, Integer> nodeIds;
+    private int nodeCount;
+    private int[][] adjacency;
+    private int[] degrees;
+    private int[] components;
+    private int[] visitMarks;
+    private int[] componentMarks;
+    private boolean[] reachesTarget;
+    private int visitEpoch;
+    private int[] stack;
+    private int[] edgeCursors;
 
     CycleReferenceChecker() {
-        scannedClasses = new HashSet<>();
-        dependenciesMap = Maps.newHashMap();
+        nodeIds = Maps.newHashMap();
+        adjacency = new int[INITIAL_CAPACITY][];
+        degrees = new int[INITIAL_CAPACITY];
+        components = new int[INITIAL_CAPACITY];
+        visitMarks = new int[INITIAL_CAPACITY];
+        componentMarks = new int[INITIAL_CAPACITY];
+        reachesTarget = new boolean[INITIAL_CAPACITY];
+        stack = new int[INITIAL_CAPACITY];
+        edgeCursors = new int[INITIAL_CAPACITY];
     }
 
-    boolean isCycled(Class<?> owner, Class<?> dependency) throws ClassNotFoundException {
-        if (dependency.getName().equalsIgnoreCase(owner.getName())) {
+    /**
+     * record owner -&gt; dependency and check whether dependency references owner back
+     *
+     * @param owner      referencing type
+     * @param dependency referenced type
+     * @return true if owner and dependency are in the same cycle
+     */
+    boolean isCycled(Class<?> owner, Class<?> dependency) {
+        if (dependency.getName().equals(owner.getName())) {
             return true;
         }
-        addDependencies(owner, dependency);
-        if (!scannedClasses.contains(owner)) {
-            return false;
+        final int from = intern(owner.getName());
+        final int to = intern(dependency.getName());
+        if (!addEdge(from, to) || find(from) == find(to)) {
+            return find(from) == find(to);
         }
-        return isReferenced(owner, dependency, Sets.newHashSet());
+        mergeCycle(from, to);
+        return find(from) == find(to);
     }
 
-    private boolean isReferenced(Class<?> owner, Class<?> dependency, Set<String> checkedClassSet) throws ClassNotFoundException {
-        Set<String> dependencies = dependenciesMap.get(dependency.getName());
+    private int intern(String className) {
+        final Integer id = nodeIds.get(className);
+        if (id != null) {
+            return id;
+        }
+        if (nodeCount == components.length) {
+            grow();
+        }
+        final int newId = nodeCount++;
+        components[newId] = newId;
+        adjacency[newId] = new int[4];
+        nodeIds.put(className, newId);
+        return newId;
+    }
 
-        if (CollectionUtils.isEmpty(dependencies)) {
-            checkedClassSet.add(dependency.getName());
-            return false;
+    private boolean addEdge(int from, int to) {
+        int[] edges = adjacency[from];
+        for (int i = 0; i < degrees[from]; i++) {
+            if (edges[i] == to) {
+                return false;
+            }
         }
-        if (dependencies.contains(owner.getName()) || owner == dependency) {
-            return true;
+        if (degrees[from] == edges.length) {
+            edges = Arrays.copyOf(edges, edges.length * 2);
+            adjacency[from] = edges;
         }
-        if (checkedClassSet.contains(dependency.getName())) {
-            return false;
+        edges[degrees[from]++] = to;
+        return true;
+    }
+
+    /**
+     * after adding from -&gt; to, every component on a path to -&gt; ... -&gt; from joins the component of from.
+     * iterative dfs from to, a component reaches the target when any of its members has an edge into a reaching component
+     */
+    private void mergeCycle(int from, int to) {
+        final int target = find(from);
+        visitEpoch++;
+        int visitedCount = 0;
+        int[] visited = new int[INITIAL_CAPACITY];
+        int top = -1;
+
+        visitNode(to);
+        visited[visitedCount++] = to;
+        stack[++top] = to;
+        edgeCursors[top] = 0;
+        while (top >= 0) {
+            final int node = stack[top];
+            if (edgeCursors[top] < degrees[node]) {
+                final int next = adjacency[node][edgeCursors[top]++];
+                final int nextComponent = find(next);
+                if (nextComponent == target) {
+                    reachesTarget[find(node)] = true;
+                } else if (visitMarks[next] == visitEpoch) {
+                    // finished node, or an ancestor on the stack which is already in the same component
+                    if (reachesTarget[nextComponent]) {
+                        reachesTarget[find(node)] = true;
+                    }
+                } else {
+                    visitNode(next);
+                    if (visitedCount == visited.length) {
+                        visited = Arrays.copyOf(visited, visitedCount * 2);
+                    }
+                    visited[visitedCount++] = next;
+                    stack[++top] = next;
+                    edgeCursors[top] = 0;
+                }
+            } else {
+                top--;
+                if (top >= 0 && reachesTarget[find(node)]) {
+                    reachesTarget[find(stack[top])] = true;
+                }
+            }
         }
 
-        checkedClassSet.add(dependency.getName());
-        for (String historyDependency : dependencies) {
-            if (isReferenced(owner, Class.forName(historyDependency), checkedClassSet)) {
-                return true;
+        reachesTarget[target] = true;
+        for (int i = 0; i < visitedCount; i++) {
+            if (reachesTarget[find(visited[i])]) {
+                union(visited[i], target);
             }
         }
-        return false;
     }
 
-    private void addDependencies(Class<?> rootClass, Class<?> dependencyClass) {
-        dependenciesMap.putIfAbsent(rootClass.getName(), Sets.newHashSet());
-        final Set<String> dependencies = dependenciesMap.get(rootClass.getName());
-        dependencies.add(dependencyClass.getName());
-        dependenciesMap.put(rootClass.getName(), dependencies);
-        scannedClasses.add(dependencyClass);
-        scannedClasses.add(rootClass);
+    private void visitNode(int node) {
+        visitMarks[node] = visitEpoch;
+        final int component = find(node);
+        if (componentMarks[component] != visitEpoch) {
+            componentMarks[component] = visitEpoch;
+            reachesTarget[component] = false;
+        }
+    }
+
+    private int find(int node) {
+        while (components[node] != node) {
+            components[node] = components[components[node]];
+            node = components[node];
+        }
+        return node;
     }
 
+    private void union(int node, int target) {
+        final int nodeComponent = find(node);
+        final int targetComponent = find(target);
+        if (nodeComponent != targetComponent) {
+            components[nodeComponent] = targetComponent;
+        }
+    }
 
+    private void grow() {
+        final int capacity = components.length * 2;
+        adjacency = Arrays.copyOf(adjacency, capacity);
+        degrees = Arrays.copyOf(degrees, capacity);
+        components = Arrays.copyOf(components, capacity);
+        visitMarks = Arrays.copyOf(visitMarks, capacity);
+        componentMarks = Arrays.copyOf(componentMarks, capacity);
+        reachesTarget = Arrays.copyOf(reachesTarget, capacity);
+        stack = Arrays.copyOf(stack, capacity);
+        edgeCursors = Arrays.copyOf(edgeCursors, capacity);
+    }
 }
@@ -0,0 +1,116 @@
+package top.kidhx.apidoc.sourcehandler;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.springframework.util.DigestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * creates isolated class loaders for the scanned project.
+ * dependency loaders are shared by modules with the same classpath during one maven session,
+ * and closed when a new session starts; the loader of project classes is closed by the caller
+ *
+ * @author HX
+ * @date 2022/2/13
+ */
+public class ProjectClassLoaderFactory {
+
+    private static final Map<String, URLClassLoader> DEPENDENCY_LOADERS = Maps.newHashMap();
+    private static WeakReference<MavenSession> currentSession;
+
+    private ProjectClassLoaderFactory() {
+    }
+
+    /**
+     * create class loader of project classes, parent is the shared dependency loader
+     *
+     * @param session      current maven session
+     * @param mavenProject current project
+     * @param classesDir   project classes directory
+     * @param parent       plugin class loader
+     * @param log          maven log
+     * @return class loader to be closed after execution
+     */
+    public static URLClassLoader create(MavenSession session, MavenProject mavenProject, File classesDir, ClassLoader parent, Log log) throws MalformedURLException {
+        final URLClassLoader dependencyLoader = getDependencyLoader(session, mavenProject, parent, log);
+        return new URLClassLoader(new URL[]{classesDir.toURI().toURL()}, dependencyLoader);
+    }
+
+    private static synchronized URLClassLoader getDependencyLoader(MavenSession session, MavenProject mavenProject, ClassLoader parent, Log log) {
+        if (currentSession == null || currentSession.get() != session) {
+            closeAll(log);
+            currentSession = new WeakReference<>(session);
+        }
+        final List<File> files = getDependencyFiles(mavenProject);
+        final String classpathHash = getClasspathHash(files);
+        URLClassLoader dependencyLoader = DEPENDENCY_LOADERS.get(classpathHash);
+        if (dependencyLoader == null) {
+            dependencyLoader = new URLClassLoader(toURLs(files, log), parent);
+            DEPENDENCY_LOADERS.put(classpathHash, dependencyLoader);
+            log.info("dependency class loader created, artifacts:" + files.size());
+        } else {
+            log.info("dependency class loader reused, artifacts:" + files.size());
+        }
+        return dependencyLoader;
+    }
+
+    private static void closeAll(Log log) {
+        for (URLClassLoader loader : DEPENDENCY_LOADERS.values()) {
+            close(loader, log);
+        }
+        DEPENDENCY_LOADERS.clear();
+    }
+
+    public static void close(URLClassLoader loader, Log log) {
+        try {
+            loader.close();
+        } catch (IOException e) {
+            log.warn("class loader close failed:" + e.getMessage());
+        }
+    }
+
+    private static List<File> getDependencyFiles(MavenProject mavenProject) {
+        final List<File> files = Lists.newArrayList();
+        for (Artifact artifact : mavenProject.getArtifacts()) {
+            if (artifact.getFile() != null) {
+                files.add(artifact.getFile());
+            }
+        }
+        files.sort(Comparator.comparing(File::getAbsolutePath));
+        return files;
+    }
+
+    private static String getClasspathHash(List<File> files) {
+        final StringBuilder builder = new StringBuilder();
+        for (File file : files) {
+            builder.append(file.getAbsolutePath()).append('@').append(file.lastModified()).append(File.pathSeparatorChar);
+        }
+        return DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static URL[] toURLs(List<File> files, Log log) {
+        final List<URL> urls = Lists.newArrayList();
+        for (File file : files) {
+            try {
+                urls.add(file.toURI().toURL());
+            } catch (MalformedURLException e) {
+                log.warn("artifact:" + file + "not found");
+            }
+        }
+        return urls.toArray(new URL[0]);
+    }
+}
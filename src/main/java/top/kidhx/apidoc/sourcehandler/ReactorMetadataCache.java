@@ -0,0 +1,146 @@
+package top.kidhx.apidoc.sourcehandler;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Maps;
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import top.kidhx.apidoc.bo.ClassMeta;
+import top.kidhx.apidoc.bo.SourceComment;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * class metas and parsed source comments shared by all modules of one maven session, so a dto module referenced
+ * by many modules of a reactor build is read once. class metas are keyed by artifact coordinates, content hash of the
+ * artifact (jar or classes directory) and configuration, and only hold types of that artifact and its dependencies,
+ * which do not change while the session runs. a new session drops everything, like {@link ProjectClassLoaderFactory}
+ *
+ * @author HX
+ * @date 2022/2/24
+ */
+public class ReactorMetadataCache {
+
+    private static final long SOURCE_COMMENT_CACHE_SIZE = 8192;
+
+    private static WeakReference<MavenSession> currentSession;
+    private static ReactorMetadataCache current;
+
+    private final Cache<String, SourceComment> sourceComments = CacheBuilder.newBuilder()
+            .maximumSize(SOURCE_COMMENT_CACHE_SIZE)
+            .recordStats()
+            .build();
+    private final Map<String, ClassMeta> classMetas = Maps.newConcurrentMap();
+    /**
+     * artifact file path with last modified time -> content hash
+     */
+    private final Map<String, String> contentHashes = Maps.newConcurrentMap();
+    private final AtomicLong classMetaHits = new AtomicLong();
+    private final AtomicLong classMetaMisses = new AtomicLong();
+
+    ReactorMetadataCache() {
+    }
+
+    /**
+     * cache of the session, a new session starts an empty cache
+     *
+     * @param session current maven session
+     * @param log     maven log
+     * @return session cache
+     */
+    public static synchronized ReactorMetadataCache get(MavenSession session, Log log) {
+        if (current == null || currentSession == null || currentSession.get() != session) {
+            current = new ReactorMetadataCache();
+            currentSession = new WeakReference<>(session);
+            log.info("reactor metadata cache created");
+        } else {
+            log.info("reactor metadata cache reused, class metas:" + current.classMetas.size() + ", hit:" + current.classMetaHits.get()
+                    + ", miss:" + current.classMetaMisses.get());
+        }
+        return current;
+    }
+
+    Cache<String, SourceComment> getSourceComments() {
+        return sourceComments;
+    }
+
+    ClassMeta getClassMeta(String key) {
+        final ClassMeta classMeta = classMetas.get(key);
+        (classMeta == null ? classMetaMisses : classMetaHits).incrementAndGet();
+        return classMeta;
+    }
+
+    void putClassMeta(String key, ClassMeta classMeta) {
+        classMetas.putIfAbsent(key, classMeta);
+    }
+
+    /**
+     * key of a class of an artifact
+     *
+     * @param artifact  artifact the class is loaded from
+     * @param className class name
+     * @param config    configuration affecting class metas
+     * @return key, null when the artifact has no readable file
+     */
+    String getKey(Artifact artifact, String className, String config) {
+        final File file = artifact.getFile();
+        if (file == null || !file.exists()) {
+            return null;
+        }
+        final String contentHash = contentHashes.computeIfAbsent(file.getAbsolutePath() + "@" + file.lastModified(), key -> md5(file));
+        return artifact.getGroupId() + ":" + artifact.getArtifactId() + ":" + artifact.getVersion()
+                + (artifact.getClassifier() == null ? "" : ":" + artifact.getClassifier())
+                + "@" + contentHash + "/" + config + "/" + className;
+    }
+
+    /**
+     * md5 of a jar, or of relative paths and contents of all files of a classes directory
+     */
+    static String md5(File file) {
+        try {
+            final MessageDigest messageDigest = MessageDigest.getInstance("MD5");
+            if (file.isFile()) {
+                update(messageDigest, file.toPath());
+            } else {
+                final Path root = file.toPath();
+                final List<Path> files;
+                try (Stream<Path> paths = Files.walk(root)) {
+                    files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+                }
+                for (Path path : files) {
+                    messageDigest.update(root.relativize(path).toString().getBytes(StandardCharsets.UTF_8));
+                    update(messageDigest, path);
+                }
+            }
+            return BaseEncoding.base16().lowerCase().encode(messageDigest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void update(MessageDigest messageDigest, Path file) throws IOException {
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), messageDigest)) {
+            ByteStreams.exhaust(in);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package top.kidhx.apidoc.sourcehandler;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.maven.plugin.logging.Log;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.bind.annotation.*;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * spring controller and mapping annotations resolved once from the project class loader,
+ * with cached attribute accessors
+ *
+ * @author HX
+ * @date 2022/2/15
+ */
+public class RequestMappingTable {
+
+    private final Log log;
+    private final List<Class<? extends Annotation>> controllerAnnotations = Lists.newArrayList();
+    private final List<MappingEntry> mappingEntries = Lists.newArrayList();
+
+    public RequestMappingTable(ClassLoader classLoader, Log log) {
+        this.log = log;
+        for (Class<? extends Annotation> controllerAnnotation : WebClassMetaReader.CONTROLLER_ANNOTATIONS) {
+            final Class<? extends Annotation> resolved = resolve(classLoader, controllerAnnotation);
+            if (resolved != null) {
+                controllerAnnotations.add(resolved);
+            }
+        }
+        // the order decides which mapping wins when several are present
+        addEntry(classLoader, GetMapping.class, HttpMethod.GET);
+        addEntry(classLoader, PostMapping.class, HttpMethod.POST);
+        addEntry(classLoader, DeleteMapping.class, HttpMethod.DELETE);
+        addEntry(classLoader, PatchMapping.class, HttpMethod.PATCH);
+        addEntry(classLoader, PutMapping.class, HttpMethod.PUT);
+        addEntry(classLoader, RequestMapping.class, null);
+    }
+
+    public boolean isController(Class<?> aClass) {
+        for (Class<? extends Annotation> controllerAnnotation : controllerAnnotations) {
+            if (aClass.getAnnotation(controllerAnnotation) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isMappingPresent(AnnotatedElement annotatedElement) {
+        for (MappingEntry mappingEntry : mappingEntries) {
+            if (annotatedElement.getAnnotation(mappingEntry.annotationType) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * find the first mapping annotation of the element, and read http methods and paths from it together
+     *
+     * @param annotatedElement handler method or controller class
+     * @return mapping, null if no mapping annotation is present
+     */
+    public Mapping findMapping(AnnotatedElement annotatedElement) {
+        for (MappingEntry mappingEntry : mappingEntries) {
+            final Annotation annotation = AnnotationUtils.findAnnotation(annotatedElement, mappingEntry.annotationType);
+            if (annotation != null) {
+                return new Mapping(mappingEntry.getHttpMethods(annotation), mappingEntry.getPaths(annotation));
+            }
+        }
+        return null;
+    }
+
+    private void addEntry(ClassLoader classLoader, Class<? extends Annotation> mappingClass, HttpMethod httpMethod) {
+        final Class<? extends Annotation> annotationType = resolve(classLoader, mappingClass);
+        if (annotationType == null) {
+            return;
+        }
+        try {
+            mappingEntries.add(new MappingEntry(annotationType, httpMethod,
+                    accessor(annotationType, WebClassMetaReader.METHOD_VALUE),
+                    accessor(annotationType, WebClassMetaReader.PATH_METHOD),
+                    httpMethod == null ? accessor(annotationType, WebClassMetaReader.REQUEST_METHOD) : null));
+        } catch (NoSuchMethodException e) {
+            log.error(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Class<? extends Annotation> resolve(ClassLoader classLoader, Class<? extends Annotation> annotationClass) {
+        try {
+            return (Class<? extends Annotation>) classLoader.loadClass(annotationClass.getName());
+        } catch (ClassNotFoundException e) {
+            log.warn("annotation not found in project class path:" + annotationClass.getName());
+            return null;
+        }
+    }
+
+    private static Method accessor(Class<? extends Annotation> annotationType, String name) throws NoSuchMethodException {
+        final Method method = annotationType.getMethod(name);
+        method.setAccessible(true);
+        return method;
+    }
+
+    /**
+     * http methods and paths of a mapping annotation
+     */
+    public static class Mapping {
+        private final Set<String> httpMethods;
+        private final Set<String> paths;
+
+        Mapping(Set<String> httpMethods, Set<String> paths) {
+            this.httpMethods = httpMethods;
+            this.paths = paths;
+        }
+
+        public Set<String> getHttpMethods() {
+            return httpMethods;
+        }
+
+        public Set<String> getPaths() {
+            return paths;
+        }
+    }
+
+    private class MappingEntry {
+        private final Class<? extends Annotation> annotationType;
+        private final HttpMethod httpMethod;
+        private final Method valueAccessor;
+        private final Method pathAccessor;
+        private final Method requestMethodAccessor;
+
+        MappingEntry(Class<? extends Annotation> annotationType, HttpMethod httpMethod, Method valueAccessor, Method pathAccessor, Method requestMethodAccessor) {
+            this.annotationType = annotationType;
+            this.httpMethod = httpMethod;
+            this.valueAccessor = valueAccessor;
+            this.pathAccessor = pathAccessor;
+            this.requestMethodAccessor = requestMethodAccessor;
+        }
+
+        private Set<String> getHttpMethods(Annotation annotation) {
+            if (httpMethod != null) {
+                return Sets.newHashSet(httpMethod.name());
+            }
+            try {
+                final Object[] requestMethods = (Object[]) requestMethodAccessor.invoke(annotation);
+                if (ArrayUtils.isEmpty(requestMethods)) {
+                    return Sets.newHashSet(HttpMethod.GET.name());
+                }
+                final Set<String> result = Sets.newLinkedHashSet();
+                for (Object requestMethod : requestMethods) {
+                    result.add(((Enum<?>) requestMethod).name());
+                }
+                return result;
+            } catch (Exception e) {
+                log.error(e);
+                return Sets.newHashSet(HttpMethod.GET.name());
+            }
+        }
+
+        private Set<String> getPaths(Annotation annotation) {
+            try {
+                final String[] value = (String[]) valueAccessor.invoke(annotation);
+                final String[] path = (String[]) pathAccessor.invoke(annotation);
+                return Sets.newLinkedHashSet(Lists.newArrayList(ArrayUtils.isEmpty(value) ? path : value));
+            } catch (Exception e) {
+                log.error(e);
+                return null;
+            }
+        }
+    }
+}
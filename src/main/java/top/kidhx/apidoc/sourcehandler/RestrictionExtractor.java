@@ -0,0 +1,21 @@
+package top.kidhx.apidoc.sourcehandler;
+
+import java.util.function.Function;
+
+/**
+ * describes the restriction of a constraint annotation
+ *
+ * @author HX
+ * @date 2022/2/14
+ */
+@FunctionalInterface
+public interface RestrictionExtractor {
+
+    /**
+     * build restriction description
+     *
+     * @param attributes annotation attribute values by attribute name
+     * @return restriction description
+     */
+    String extract(Function<String, Object> attributes);
+}
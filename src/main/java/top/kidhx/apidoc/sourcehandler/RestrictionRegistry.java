@@ -0,0 +1,173 @@
+package top.kidhx.apidoc.sourcehandler;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.web.bind.annotation.RequestBody;
+
+import javax.validation.constraints.*;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+
+/**
+ * maps constraint annotation type to its restriction extractor.
+ * annotations are matched by class name so the same registry works for every class loader,
+ * attribute accessors are resolved once per annotation type
+ *
+ * @author HX
+ * @date 2022/2/14
+ */
+public class RestrictionRegistry {
+
+    private static final String SEPARATOR = "<br/>";
+    private static final java.util.regex.Pattern TEMPLATE_ATTRIBUTE = java.util.regex.Pattern.compile("\\{(\\w+)}");
+
+    private final Map<String, RegisteredExtractor> extractors = Maps.newConcurrentMap();
+    private final Map<Class<? extends Annotation>, Map<String, Method>> accessors = Maps.newConcurrentMap();
+    private final AtomicInteger order = new AtomicInteger();
+
+    public static RestrictionRegistry createDefault() {
+        return new RestrictionRegistry()
+                .register(attributes -> "`非空`", NotNull.class)
+                .register(attributes -> "`非空字符串`", NotBlank.class, org.hibernate.validator.constraints.NotBlank.class)
+                .register(attributes -> "`必须为空值`", Null.class)
+                .register(attributes -> "`必须为数字-整数最大值为:" + attributes.apply("integer") + "位小数位最多为:" + attributes.apply("fraction") + "位`", Digits.class)
+                .register(attributes -> "`必须为false`", AssertFalse.class)
+                .register(attributes -> "`必须为true`", AssertTrue.class)
+                .register(attributes -> "`整形，最大值为" + attributes.apply("value") + "`", Max.class)
+                .register(attributes -> "`整形，最小值为" + attributes.apply("value") + "`", Min.class)
+                .register(attributes -> "`必须为过去的时间`", Past.class)
+                .register(attributes -> "`请匹配正则表达式:" + attributes.apply("regexp") + "`", Pattern.class)
+                .register(attributes -> "`最大容量为:" + attributes.apply("max") + ",最小容量为:" + attributes.apply("min") + "`", Size.class)
+                .register(attributes -> "`浮点型最大值为:" + attributes.apply("value") + "是否包含边界:" + attributes.apply("inclusive") + "`", DecimalMax.class)
+                .register(attributes -> "`浮点型最小值为:" + attributes.apply("value") + "是否包含边界:" + attributes.apply("inclusive") + "`", DecimalMin.class)
+                .register(attributes -> "`必须为未来的时间`", Future.class)
+                .register(attributes -> "`必须为当前或者过去的时间`", PastOrPresent.class)
+                .register(attributes -> "`必须为负数`", Negative.class)
+                .register(attributes -> "`必须为零或者负数`", NegativeOrZero.class)
+                .register(attributes -> "`必须为正数`", Positive.class)
+                .register(attributes -> "`必须为零或者正数`", PositiveOrZero.class)
+                .register(attributes -> "`数组或字符串不能null, 并且容量必须大于0`", NotEmpty.class)
+                .register(attributes -> "`必须为电子邮件地址格式`", Email.class)
+                .register(attributes -> "`请从requestBody传入参数`", RequestBody.class);
+    }
+
+    /**
+     * register an extractor, aliases share one restriction line
+     *
+     * @param extractor       restriction extractor
+     * @param annotationTypes annotation types
+     * @return this registry
+     */
+    @SafeVarargs
+    public final RestrictionRegistry register(RestrictionExtractor extractor, Class<? extends Annotation>... annotationTypes) {
+        final String[] annotationClassNames = new String[annotationTypes.length];
+        for (int i = 0; i < annotationTypes.length; i++) {
+            annotationClassNames[i] = annotationTypes[i].getName();
+        }
+        return register(extractor, annotationClassNames);
+    }
+
+    public RestrictionRegistry register(RestrictionExtractor extractor, String... annotationClassNames) {
+        final RegisteredExtractor registeredExtractor = new RegisteredExtractor(order.getAndIncrement(), extractor);
+        for (String annotationClassName : annotationClassNames) {
+            extractors.put(annotationClassName, registeredExtractor);
+        }
+        return this;
+    }
+
+    /**
+     * register a custom constraint annotation with a template, attributes are referenced as {attributeName}
+     *
+     * @param annotationClassName annotation class name
+     * @param template            description template
+     * @return this registry
+     */
+    public RestrictionRegistry registerTemplate(String annotationClassName, String template) {
+        final List<String> literals = Lists.newArrayList();
+        final List<String> attributeNames = Lists.newArrayList();
+        final Matcher matcher = TEMPLATE_ATTRIBUTE.matcher(template);
+        int start = 0;
+        while (matcher.find()) {
+            literals.add(template.substring(start, matcher.start()));
+            attributeNames.add(matcher.group(1));
+            start = matcher.end();
+        }
+        literals.add(template.substring(start));
+        return register(attributes -> {
+            final StringBuilder builder = new StringBuilder("`");
+            for (int i = 0; i < attributeNames.size(); i++) {
+                builder.append(literals.get(i)).append(attributes.apply(attributeNames.get(i)));
+            }
+            return builder.append(literals.get(attributeNames.size())).append("`").toString();
+        }, annotationClassName);
+    }
+
+    /**
+     * describe restrictions of an element in one pass over its annotations, in registration order
+     *
+     * @param element field or parameter
+     * @return restrictions joined by line break
+     */
+    public String findRestrictions(AnnotatedElement element) {
+        final Annotation[] annotations = element.getAnnotations();
+        if (ArrayUtils.isEmpty(annotations)) {
+            return StringUtils.EMPTY;
+        }
+        TreeMap<Integer, String> restrictions = null;
+        for (Annotation annotation : annotations) {
+            final RegisteredExtractor registeredExtractor = extractors.get(annotation.annotationType().getName());
+            if (registeredExtractor == null) {
+                continue;
+            }
+            if (restrictions == null) {
+                restrictions = Maps.newTreeMap();
+            }
+            if (!restrictions.containsKey(registeredExtractor.order)) {
+                restrictions.put(registeredExtractor.order, registeredExtractor.extractor.extract(name -> getAttribute(annotation, name)));
+            }
+        }
+        return restrictions == null ? StringUtils.EMPTY : String.join(SEPARATOR, restrictions.values());
+    }
+
+    private Object getAttribute(Annotation annotation, String name) {
+        final Method accessor = accessors.computeIfAbsent(annotation.annotationType(), this::resolveAccessors).get(name);
+        if (accessor == null) {
+            return null;
+        }
+        try {
+            return accessor.invoke(annotation);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("read annotation attribute failed:" + annotation.annotationType().getName() + "." + name, e);
+        }
+    }
+
+    private Map<String, Method> resolveAccessors(Class<? extends Annotation> annotationType) {
+        final Map<String, Method> result = Maps.newHashMap();
+        for (Method method : annotationType.getDeclaredMethods()) {
+            if (method.getParameterCount() == 0) {
+                method.setAccessible(true);
+                result.put(method.getName(), method);
+            }
+        }
+        return result;
+    }
+
+    private static class RegisteredExtractor {
+        private final int order;
+        private final RestrictionExtractor extractor;
+
+        RegisteredExtractor(int order, RestrictionExtractor extractor) {
+            this.order = order;
+            this.extractor = extractor;
+        }
+    }
+}
@@ -7,15 +7,23 @@ import com.github.javaparser.ast.body.EnumConstantDeclaration;
 import com.github.javaparser.ast.body.FieldDeclaration;
 import com.github.javaparser.ast.body.MethodDeclaration;
 import com.github.javaparser.ast.visitor.VoidVisitorAdapter;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import org.apache.commons.lang3.StringUtils;
 import top.kidhx.apidoc.bo.Comment;
 import top.kidhx.apidoc.bo.MethodComment;
+import top.kidhx.apidoc.bo.SourceComment;
 import top.kidhx.apidoc.bo.enums.CommentType;
+import top.kidhx.apidoc.utils.PhaseMetrics;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -28,6 +36,10 @@ import java.util.stream.Collectors;
 public class SourceCodeReader {
 
     private static final Pattern REGEX = Pattern.compile("\\s*|\t|\r|\n");
+    private static final long DEFAULT_CACHE_SIZE = 512;
+
+    private final Cache<String, SourceComment> sourceCache;
+    private PhaseMetrics phaseMetrics = PhaseMetrics.NONE;
 
     private static String handleFieldComment(String content) {
         if (content.contains("*")) {
@@ -38,39 +50,92 @@ public class SourceCodeReader {
         return content;
     }
 
+    public SourceCodeReader() {
+        this(DEFAULT_CACHE_SIZE);
+    }
+
+    public SourceCodeReader(long cacheSize) {
+        this(CacheBuilder.newBuilder()
+                .maximumSize(cacheSize)
+                .recordStats()
+                .<String, SourceComment>build());
+    }
+
+    /**
+     * read through a cache shared with other readers, such as the one of {@link ReactorMetadataCache}
+     *
+     * @param sourceCache cache of parsed comments, keyed by canonical path and last modified time
+     */
+    public SourceCodeReader(Cache<String, SourceComment> sourceCache) {
+        this.sourceCache = sourceCache;
+    }
+
+    public SourceCodeReader setPhaseMetrics(PhaseMetrics phaseMetrics) {
+        this.phaseMetrics = phaseMetrics;
+        return this;
+    }
+
     public Map<String, Comment> resolveComment(File file, CommentType commentType) throws Exception {
-        final CompilationUnit compilationUnit = JavaParser.parse(file);
+        final SourceComment sourceComment = resolve(file);
         switch (commentType) {
             case API:
-                return parseMethodComment(compilationUnit);
+                return sourceComment.getMethodComments();
             case FIELD:
-                return parseFieldComment(compilationUnit);
+                return sourceComment.getFieldComments();
             case ENUM:
-                return parseEnumComment(compilationUnit);
+                return sourceComment.getEnumComments();
             default:
         }
         return Maps.newHashMap();
     }
 
-    private Map<String, Comment> parseEnumComment(CompilationUnit compilationUnit) {
-        final EnumCommentVisitor enumCommentVisitor = new EnumCommentVisitor();
-        final HashMap<String, Comment> result = Maps.newHashMap();
-        enumCommentVisitor.visit(compilationUnit, result);
-        return result;
+    public String resolveClassComment(File file) throws IOException {
+        return resolve(file).getClassComment();
     }
 
-    private Map<String, Comment> parseFieldComment(CompilationUnit compilationUnit) {
-        final FieldCommentVisitor fieldCommentVisitor = new FieldCommentVisitor();
-        Map<String, Comment> result = Maps.newHashMap();
-        fieldCommentVisitor.visit(compilationUnit, result);
-        return result;
+    /**
+     * parse the source file once and resolve class, method, field and enum comments together,
+     * results are cached by canonical path and last modified time
+     *
+     * @param file java source file
+     * @return all comments of the file
+     */
+    public SourceComment resolve(File file) throws IOException {
+        final String key = file.getCanonicalPath() + "@" + file.lastModified();
+        SourceComment sourceComment = sourceCache.getIfPresent(key);
+        if (sourceComment == null) {
+            try (PhaseMetrics.Sample ignored = phaseMetrics.start(PhaseMetrics.SOURCE_PARSING, file.getPath())) {
+                sourceComment = parse(file);
+            }
+            sourceCache.put(key, sourceComment);
+        }
+        return sourceComment;
     }
 
-    private Map<String, Comment> parseMethodComment(CompilationUnit compilationUnit) {
-        final MethodCommentVisitor methodCommentVisitor = new MethodCommentVisitor();
-        Map<String, String> result = Maps.newHashMap();
-        methodCommentVisitor.visit(compilationUnit, result);
-        return toMethodComments(result);
+    public CacheStats getCacheStats() {
+        return sourceCache.stats();
+    }
+
+    /**
+     * parse a source file read from a stream, such as an entry of a sources jar, without caching
+     *
+     * @param in utf-8 source
+     * @return all comments of the source
+     */
+    public SourceComment parse(InputStream in) {
+        return toSourceComment(JavaParser.parse(in, StandardCharsets.UTF_8));
+    }
+
+    private SourceComment parse(File file) throws FileNotFoundException {
+        return toSourceComment(JavaParser.parse(file));
+    }
+
+    private SourceComment toSourceComment(CompilationUnit compilationUnit) {
+        final SourceComment sourceComment = new SourceComment();
+        final Map<String, String> methodComments = Maps.newHashMap();
+        new CommentVisitor(methodComments).visit(compilationUnit, sourceComment);
+        sourceComment.setMethodComments(toMethodComments(methodComments));
+        return sourceComment;
     }
 
     private Map<String, Comment> toMethodComments(Map<String, String> commentMap) {
@@ -116,54 +181,43 @@ public class SourceCodeReader {
         return methodComment;
     }
 
-    public String resolveClassComment(File file) throws FileNotFoundException {
-        final CompilationUnit unit = JavaParser.parse(file);
-        return parseClassComment(unit);
-    }
+    private static class CommentVisitor extends VoidVisitorAdapter<SourceComment> {
 
-    private String parseClassComment(CompilationUnit unit) {
-        final ClassCommentVisitor classCommentVisitor = new ClassCommentVisitor();
-        final List<String> result = Lists.newArrayList();
-        classCommentVisitor.visit(unit, result);
-        return result.size() > 0 ? result.get(0) : null;
-    }
+        private final Map<String, String> methodComments;
+
+        CommentVisitor(Map<String, String> methodComments) {
+            this.methodComments = methodComments;
+        }
 
-    private static class MethodCommentVisitor extends VoidVisitorAdapter<Map<String, String>> {
         @Override
-        public void visit(MethodDeclaration n, Map<String, String> commentMap) {
-            super.visit(n, commentMap);
+        public void visit(MethodDeclaration n, SourceComment sourceComment) {
+            super.visit(n, sourceComment);
             final Optional<com.github.javaparser.ast.comments.Comment> comment = n.getComment();
-            comment.ifPresent(c -> commentMap.put(n.getNameAsString(), c.getContent()));
+            comment.ifPresent(c -> methodComments.put(n.getNameAsString(), c.getContent()));
         }
-    }
 
-    private static class FieldCommentVisitor extends VoidVisitorAdapter<Map<String, Comment>> {
         @Override
-        public void visit(FieldDeclaration n, Map<String, Comment> commentMap) {
-            super.visit(n, commentMap);
+        public void visit(FieldDeclaration n, SourceComment sourceComment) {
+            super.visit(n, sourceComment);
             final Optional<com.github.javaparser.ast.comments.Comment> comment = n.getComment();
-            comment.ifPresent(c -> commentMap.put(n.getVariables().get(0).getNameAsString(), new Comment().setValue(handleFieldComment(c.getContent()))));
+            comment.ifPresent(c -> sourceComment.getFieldComments().put(n.getVariables().get(0).getNameAsString(), new Comment().setValue(handleFieldComment(c.getContent()))));
         }
-    }
 
-    private static class EnumCommentVisitor extends VoidVisitorAdapter<Map<String, Comment>> {
         @Override
-        public void visit(EnumConstantDeclaration n, Map<String, Comment> commentMap) {
-            super.visit(n, commentMap);
+        public void visit(EnumConstantDeclaration n, SourceComment sourceComment) {
+            super.visit(n, sourceComment);
             final Optional<com.github.javaparser.ast.comments.Comment> comment = n.getComment();
-            comment.ifPresent(c -> commentMap.put(n.getNameAsString(), new Comment().setValue(handleFieldComment(c.getContent()))));
+            comment.ifPresent(c -> sourceComment.getEnumComments().put(n.getNameAsString(), new Comment().setValue(handleFieldComment(c.getContent()))));
         }
-    }
 
-    private static class ClassCommentVisitor extends VoidVisitorAdapter<List<String>> {
         @Override
-        public void visit(ClassOrInterfaceDeclaration n, List<String> result) {
-            super.visit(n, result);
+        public void visit(ClassOrInterfaceDeclaration n, SourceComment sourceComment) {
+            super.visit(n, sourceComment);
             final Optional<com.github.javaparser.ast.comments.Comment> comment = n.getComment();
-            if (comment.isPresent()) {
+            if (comment.isPresent() && sourceComment.getClassComment() == null) {
                 String c = toClassComment(comment.get());
                 if (StringUtils.isNotBlank(c)) {
-                    result.add(c);
+                    sourceComment.setClassComment(c);
                 }
             }
         }
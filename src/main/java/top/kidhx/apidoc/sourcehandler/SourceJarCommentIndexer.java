@@ -0,0 +1,193 @@
+package top.kidhx.apidoc.sourcehandler;
+
+import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.Futures;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.plugin.logging.Log;
+import org.springframework.util.DigestUtils;
+import top.kidhx.apidoc.bo.SourceComment;
+import top.kidhx.apidoc.utils.PhaseMetrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * comments of dependency classes read from the -sources.jar next to the artifact in the local repository.
+ * every sources jar is parsed once into a {@link CommentIndex} file named by artifact coordinates and a key of the jar
+ * file (its .sha1 checksum file, size and last modified time), later runs and modules only map the file without
+ * reading the jar
+ *
+ * @author HX
+ * @date 2022/2/25
+ */
+public class SourceJarCommentIndexer {
+
+    public static final String INDEX_DIR_NAME = ".api-doc-comment-index";
+    private static final String JAR_POSTFIX = ".jar";
+    private static final String SOURCES_POSTFIX = "-sources.jar";
+    private static final String SOURCE_POSTFIX = ".java";
+    private static final String INDEX_POSTFIX = ".idx";
+    private static final String SHA1_POSTFIX = ".sha1";
+
+    private final Log log;
+    private final File indexDirectory;
+    private final SourceCodeReader sourceCodeReader = new SourceCodeReader();
+    /**
+     * artifact file -> index, empty when the artifact has no sources jar. the index is opened or built by the first
+     * caller outside of the map, others wait for its future
+     */
+    private final Map<String, Future<Optional<CommentIndex>>> indexes = Maps.newConcurrentMap();
+    private PhaseMetrics phaseMetrics = PhaseMetrics.NONE;
+
+    public SourceJarCommentIndexer(Log log, File indexDirectory) {
+        this.log = log;
+        this.indexDirectory = indexDirectory;
+    }
+
+    public SourceJarCommentIndexer setPhaseMetrics(PhaseMetrics phaseMetrics) {
+        this.phaseMetrics = phaseMetrics;
+        return this;
+    }
+
+    /**
+     * comments of a class of a dependency jar, nested classes share the comments of their source file
+     *
+     * @param artifact  artifact the class is loaded from
+     * @param className class name
+     * @return comments, null when the artifact has no sources jar or the class is not in it
+     */
+    public SourceComment find(Artifact artifact, String className) {
+        final File file = artifact.getFile();
+        if (file == null || !file.isFile() || !file.getName().endsWith(JAR_POSTFIX)) {
+            return null;
+        }
+        final CommentIndex index = getIndex(file.getAbsolutePath(), artifact).orElse(null);
+        if (index == null) {
+            return null;
+        }
+        final int nested = className.indexOf('$');
+        try {
+            return index.find(nested > 0 ? className.substring(0, nested) : className);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            drop(file.getAbsolutePath(), index, e);
+            return null;
+        }
+    }
+
+    /**
+     * stop using an index with broken records, the file is deleted so the next build rebuilds it
+     */
+    private void drop(String key, CommentIndex index, RuntimeException e) {
+        indexes.put(key, Futures.immediateFuture(Optional.empty()));
+        log.warn("comment index broken, comments of the artifact skipped:" + index.getFile() + ", " + e);
+        try {
+            Files.deleteIfExists(index.getFile().toPath());
+        } catch (IOException deleteFailure) {
+            log.warn("broken comment index delete failed:" + deleteFailure.getMessage());
+        }
+    }
+
+    private Optional<CommentIndex> getIndex(String key, Artifact artifact) {
+        Future<Optional<CommentIndex>> future = indexes.get(key);
+        if (future == null) {
+            final FutureTask<Optional<CommentIndex>> task = new FutureTask<>(() -> Optional.ofNullable(open(artifact)));
+            future = indexes.putIfAbsent(key, task);
+            if (future == null) {
+                future = task;
+                task.run();
+            }
+        }
+        return Futures.getUnchecked(future);
+    }
+
+    private CommentIndex open(Artifact artifact) {
+        final File sourcesJar = getSourcesJar(artifact);
+        if (!sourcesJar.isFile()) {
+            log.debug("no sources jar of " + artifact.getId());
+            return null;
+        }
+        try {
+            final File indexFile = new File(indexDirectory, artifact.getGroupId() + File.separator
+                    + artifact.getArtifactId() + "-" + artifact.getVersion() + "-" + getJarKey(sourcesJar) + INDEX_POSTFIX);
+            if (indexFile.isFile()) {
+                try {
+                    return CommentIndex.open(indexFile);
+                } catch (IllegalStateException e) {
+                    log.warn("comment index broken, rebuild:" + indexFile);
+                }
+            }
+            build(sourcesJar, indexFile);
+            final CommentIndex index = CommentIndex.open(indexFile);
+            log.info("comment index built for " + artifact.getId() + ", classes:" + index.size());
+            return index;
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("comment index of " + artifact.getId() + " unavailable:" + e.getMessage());
+            return null;
+        }
+    }
+
+    private void build(File sourcesJar, File indexFile) throws IOException {
+        final Map<String, SourceComment> comments = Maps.newHashMap();
+        try (PhaseMetrics.Sample ignored = phaseMetrics.start(PhaseMetrics.SOURCE_PARSING, sourcesJar.getName());
+             JarFile jarFile = new JarFile(sourcesJar)) {
+            final Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final JarEntry entry = entries.nextElement();
+                final String name = entry.getName();
+                if (entry.isDirectory() || !name.endsWith(SOURCE_POSTFIX) || name.endsWith("package-info.java") || name.endsWith("module-info.java")) {
+                    continue;
+                }
+                try (InputStream in = jarFile.getInputStream(entry)) {
+                    comments.put(name.substring(0, name.length() - SOURCE_POSTFIX.length()).replace('/', '.'), sourceCodeReader.parse(in));
+                } catch (RuntimeException e) {
+                    log.debug("skip unparsable source " + name + " of " + sourcesJar + ":" + e.getMessage());
+                }
+            }
+        }
+        // concurrent builds of other modules or processes each write their own file, the last move wins
+        Files.createDirectories(indexFile.getParentFile().toPath());
+        final File tempFile = File.createTempFile(indexFile.getName(), ".tmp", indexFile.getParentFile());
+        try {
+            CommentIndex.write(tempFile, comments);
+            Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile.toPath());
+        }
+    }
+
+    /**
+     * md5 of the .sha1 checksum file downloaded with the jar, size and last modified time, the jar itself is only
+     * read when the index is built
+     */
+    private String getJarKey(File sourcesJar) throws IOException {
+        final File sha1File = new File(sourcesJar.getParentFile(), sourcesJar.getName() + SHA1_POSTFIX);
+        final String sha1 = sha1File.isFile() ? new String(Files.readAllBytes(sha1File.toPath()), StandardCharsets.UTF_8).trim() : "";
+        return DigestUtils.md5DigestAsHex((sha1 + "|" + sourcesJar.length() + "|" + sourcesJar.lastModified()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * artifactId-version[-classifier].jar -> artifactId-version-sources.jar in the same directory
+     */
+    private File getSourcesJar(Artifact artifact) {
+        final File file = artifact.getFile();
+        String baseName = file.getName().substring(0, file.getName().length() - JAR_POSTFIX.length());
+        if (StringUtils.isNotBlank(artifact.getClassifier()) && baseName.endsWith("-" + artifact.getClassifier())) {
+            baseName = baseName.substring(0, baseName.length() - artifact.getClassifier().length() - 1);
+        }
+        return new File(file.getParentFile(), baseName + SOURCES_POSTFIX);
+    }
+}
@@ -0,0 +1,76 @@
+package top.kidhx.apidoc.utils;
+
+import com.google.common.io.BaseEncoding;
+import com.google.common.io.ByteStreams;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * md5 of the utf-8 content written through it, the same value as md5DigestAsHex of the whole content
+ *
+ * @author HX
+ * @date 2022/2/17
+ */
+public class DigestWriter extends Writer {
+
+    private final MessageDigest messageDigest;
+    private final Writer delegate;
+
+    public DigestWriter() {
+        try {
+            messageDigest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        delegate = new OutputStreamWriter(new DigestOutputStream(ByteStreams.nullOutputStream(), messageDigest), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        try {
+            delegate.write(cbuf, off, len);
+        } catch (IOException e) {
+            // never thrown by the null stream
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        try {
+            delegate.write(str, off, len);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        try {
+            delegate.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        flush();
+    }
+
+    /**
+     * finish the digest, the writer is not usable afterwards
+     *
+     * @return lower case hex md5
+     */
+    public String getDigest() {
+        flush();
+        return BaseEncoding.base16().lowerCase().encode(messageDigest.digest());
+    }
+}
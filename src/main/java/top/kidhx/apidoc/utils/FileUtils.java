@@ -0,0 +1,41 @@
+package top.kidhx.apidoc.utils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Set;
+
+/**
+ * @author HX
+ * @date 2022/2/17
+ */
+public class FileUtils {
+
+    private static final Set<PosixFilePermission> PUBLISHED_PERMISSIONS = PosixFilePermissions.fromString("rw-r--r--");
+
+    /**
+     * temp file to be moved over target. temp files are owner only, the temp file gets the permissions of the
+     * existing target, or rw-r--r-- for a new one, where posix permissions are supported
+     *
+     * @param directory directory of the temp file, the same as of target so the move is atomic
+     * @param prefix    prefix of the temp file name
+     * @param suffix    suffix of the temp file name
+     * @param target    file the temp file replaces
+     * @return temp file
+     */
+    public static Path createTempFile(Path directory, String prefix, String suffix, Path target) throws IOException {
+        final Path temp = Files.createTempFile(directory, prefix, suffix);
+        if (!directory.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            return temp;
+        }
+        try {
+            Files.setPosixFilePermissions(temp, Files.exists(target) ? Files.getPosixFilePermissions(target) : PUBLISHED_PERMISSIONS);
+            return temp;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package top.kidhx.apidoc.utils;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.serializer.SerializerFeature;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import top.kidhx.apidoc.bo.MetricsReport;
+import top.kidhx.apidoc.bo.PhaseMetric;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * wall time, cpu time and allocated bytes per generation phase, sampled on the thread doing the work
+ * through {@link ThreadMXBean}. thread safe, samples of worker threads are summed
+ *
+ * @author HX
+ * @date 2022/2/21
+ */
+public class PhaseMetrics {
+
+    public static final String SCAN = "scan";
+    public static final String CLASS_LOAD = "class load";
+    public static final String META_EXTRACTION = "meta extraction";
+    public static final String SOURCE_PARSING = "source parsing";
+    public static final String RENDERING = "rendering";
+    public static final String MOCKING = "mocking";
+    public static final String EXPORT = "export";
+
+    public static final String REPORT_FILE_NAME = "api-doc-metrics.json";
+
+    /**
+     * records nothing, used when no metrics are configured
+     */
+    public static final PhaseMetrics NONE = new PhaseMetrics(0);
+
+    private static final List<String> PHASES = ImmutableList.of(SCAN, CLASS_LOAD, META_EXTRACTION, SOURCE_PARSING, RENDERING, MOCKING, EXPORT);
+    private static final Sample NO_SAMPLE = new Sample(null, null, null);
+
+    private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+    private final boolean cpuSupported;
+    private final boolean allocationSupported;
+    private final int topN;
+    private final long startTime = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private final Map<String, Accumulator> phases = Maps.newConcurrentMap();
+    private final Map<String, Accumulator> names = Maps.newConcurrentMap();
+
+    /**
+     * @param topN slowest names kept in the report, 0 records nothing
+     */
+    public PhaseMetrics(int topN) {
+        this.topN = topN;
+        this.cpuSupported = threadMXBean.isCurrentThreadCpuTimeSupported() && threadMXBean.isThreadCpuTimeEnabled();
+        this.allocationSupported = threadMXBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()
+                && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemoryEnabled();
+    }
+
+    public Sample start(String phase) {
+        return start(phase, null);
+    }
+
+    /**
+     * start a sample on the current thread, close it on the same thread
+     *
+     * @param phase phase name
+     * @param name  class, source file or api name, null for phase totals only
+     * @return sample
+     */
+    public Sample start(String phase, String name) {
+        if (topN <= 0) {
+            return NO_SAMPLE;
+        }
+        return new Sample(this, phase, name);
+    }
+
+    public MetricsReport toReport(String module) {
+        final List<PhaseMetric> phaseMetrics = Lists.newArrayList();
+        for (String phase : PHASES) {
+            final Accumulator accumulator = phases.get(phase);
+            if (accumulator != null) {
+                phaseMetrics.add(accumulator.toMetric(phase, null, cpuSupported, allocationSupported));
+            }
+        }
+        final List<PhaseMetric> slowest = names.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Accumulator> entry) -> entry.getValue().wallNanos.sum()).reversed())
+                .limit(topN)
+                .map(entry -> {
+                    final int separator = entry.getKey().indexOf('|');
+                    return entry.getValue().toMetric(entry.getKey().substring(0, separator), entry.getKey().substring(separator + 1),
+                            cpuSupported, allocationSupported);
+                })
+                .collect(Collectors.toList());
+        return new MetricsReport()
+                .setModule(module)
+                .setStartTime(startTime)
+                .setWallMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos))
+                .setPhases(phaseMetrics)
+                .setSlowest(slowest);
+    }
+
+    public void writeReport(File file, String module) throws IOException {
+        Files.createDirectories(file.getParentFile().toPath());
+        Files.write(file.toPath(), JSON.toJSONString(toReport(module), SerializerFeature.PrettyFormat).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private long cpuNanos() {
+        return cpuSupported ? threadMXBean.getCurrentThreadCpuTime() : 0;
+    }
+
+    private long allocatedBytes() {
+        return allocationSupported ? ((com.sun.management.ThreadMXBean) threadMXBean).getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+    }
+
+    private void record(String phase, String name, long wallNanos, long cpuNanos, long allocatedBytes) {
+        phases.computeIfAbsent(phase, key -> new Accumulator()).add(wallNanos, cpuNanos, allocatedBytes);
+        if (name != null) {
+            names.computeIfAbsent(phase + '|' + name, key -> new Accumulator()).add(wallNanos, cpuNanos, allocatedBytes);
+        }
+    }
+
+    /**
+     * a running sample, closing it records the cost since it was started
+     */
+    public static class Sample implements AutoCloseable {
+        private final PhaseMetrics metrics;
+        private final String phase;
+        private final String name;
+        private final long wallStart;
+        private final long cpuStart;
+        private final long allocatedStart;
+
+        private Sample(PhaseMetrics metrics, String phase, String name) {
+            this.metrics = metrics;
+            this.phase = phase;
+            this.name = name;
+            this.wallStart = System.nanoTime();
+            this.cpuStart = metrics == null ? 0 : metrics.cpuNanos();
+            this.allocatedStart = metrics == null ? 0 : metrics.allocatedBytes();
+        }
+
+        @Override
+        public void close() {
+            if (metrics == null) {
+                return;
+            }
+            final long cpu = metrics.cpuNanos();
+            final long allocated = metrics.allocatedBytes();
+            metrics.record(phase, name, System.nanoTime() - wallStart, cpu - cpuStart, allocated - allocatedStart);
+        }
+    }
+
+    private static class Accumulator {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder wallNanos = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        void add(long wall, long cpu, long allocated) {
+            count.increment();
+            wallNanos.add(wall);
+            cpuNanos.add(cpu);
+            allocatedBytes.add(allocated);
+        }
+
+        PhaseMetric toMetric(String phase, String name, boolean cpuSupported, boolean allocationSupported) {
+            return new PhaseMetric()
+                    .setPhase(phase)
+                    .setName(name)
+                    .setCount(count.sum())
+                    .setWallMillis(TimeUnit.NANOSECONDS.toMillis(wallNanos.sum()))
+                    .setCpuMillis(cpuSupported ? TimeUnit.NANOSECONDS.toMillis(cpuNanos.sum()) : -1)
+                    .setAllocatedBytes(allocationSupported ? allocatedBytes.sum() : -1);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package top.kidhx.apidoc;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import top.kidhx.apidoc.bo.ClassMeta;
+import top.kidhx.apidoc.sourcehandler.AbstractClassMetaReader;
+import top.kidhx.apidoc.sourcehandler.BuildStateTracker;
+
+import java.io.File;
+import java.util.List;
+
+/**
+ * @author HX
+ * @date 2022/2/12
+ */
+public class ApiGeneratorMojoTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void restrictionTemplateChangeInvalidatesBuildState() throws Exception {
+        final File outputDirectory = folder.newFolder("target");
+        final List<Class<?>> classes = Lists.newArrayList(getClass());
+
+        final ApiGeneratorMojo mojo = newMojo();
+        mojo.restrictions = ImmutableMap.of("javax.validation.constraints.Size", "length {min}-{max}");
+        final BuildStateTracker previous = newTracker(outputDirectory, mojo.getConfigHash());
+        previous.load();
+        Assert.assertEquals(classes, previous.filterChanged(classes));
+        previous.record(Lists.newArrayList(new ClassMeta().setClassName(getClass().getName()).setClassType(getClass())));
+        previous.save();
+
+        final BuildStateTracker unchanged = newTracker(outputDirectory, mojo.getConfigHash());
+        unchanged.load();
+        Assert.assertTrue(unchanged.filterChanged(classes).isEmpty());
+
+        mojo.restrictions = ImmutableMap.of("javax.validation.constraints.Size", "size {min}-{max}");
+        final BuildStateTracker changed = newTracker(outputDirectory, mojo.getConfigHash());
+        changed.load();
+        Assert.assertEquals(classes, changed.filterChanged(classes));
+    }
+
+    @Test
+    public void sourceJarCommentsChangeConfigHash() {
+        final ApiGeneratorMojo mojo = newMojo();
+        mojo.sourceJarComments = true;
+        final String hash = mojo.getConfigHash();
+        mojo.sourceJarComments = false;
+        Assert.assertNotEquals(hash, mojo.getConfigHash());
+    }
+
+    private ApiGeneratorMojo newMojo() {
+        final ApiGeneratorMojo mojo = new ApiGeneratorMojo();
+        mojo.packageName = "top.kidhx.apidoc";
+        return mojo;
+    }
+
+    private BuildStateTracker newTracker(File outputDirectory, String configHash) {
+        return new BuildStateTracker(new SystemStreamLog(), outputDirectory, configHash, Mockito.mock(AbstractClassMetaReader.class),
+                folder.getRoot().getAbsolutePath(), getClass().getClassLoader());
+    }
+}
@@ -0,0 +1,58 @@
+package top.kidhx.apidoc.apiwriter;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import top.kidhx.apidoc.bo.Api;
+import top.kidhx.apidoc.bo.ClassMeta;
+import top.kidhx.apidoc.bo.ExporterDefinition;
+import top.kidhx.apidoc.bo.FieldMeta;
+import top.kidhx.apidoc.exporter.ExporterEngine;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * @author HX
+ * @date 2022/2/17
+ */
+public class ApiDocGeneratorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void failedRenderKeepsPreviousDoc() throws Exception {
+        final File outputDirectory = folder.newFolder("apiDoc");
+        final File doc = new File(outputDirectory, "broken.md");
+        Files.write(doc.toPath(), "previous doc".getBytes(StandardCharsets.UTF_8));
+
+        final ExporterDefinition definition = new ExporterDefinition()
+                .setExporterName(ExporterEngine.FILE_EXPORTER_NAME)
+                .setParameters(ImmutableMap.of("outputPath", outputDirectory.getAbsolutePath() + File.separator));
+        final ApiDocGenerator generator = new ApiDocGenerator(new SystemStreamLog(), Lists.newArrayList(definition), getClass().getClassLoader());
+        // the header is rendered, then mocking the return value fails on the unknown type
+        final ClassMeta classMeta = new ClassMeta()
+                .setClassName("broken")
+                .setApis(Lists.newArrayList(new Api()
+                        .setName("GET  /broken")
+                        .setReturnValue(new FieldMeta()
+                                .setName("no.such.Type")
+                                .setTypeName("no.such.Type")
+                                .setType(new ClassMeta().setClassName("no.such.Type")))));
+        try {
+            generator.generateApiDoc(Lists.newArrayList(classMeta));
+            Assert.fail("rendering should fail");
+        } catch (ClassNotFoundException e) {
+            // expected
+        }
+
+        Assert.assertEquals("previous doc", new String(Files.readAllBytes(doc.toPath()), StandardCharsets.UTF_8));
+        Assert.assertArrayEquals(new String[]{"broken.md"}, outputDirectory.list());
+    }
+}
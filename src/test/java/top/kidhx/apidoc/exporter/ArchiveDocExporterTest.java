@@ -0,0 +1,192 @@
+package top.kidhx.apidoc.exporter;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.io.ByteStreams;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.util.DigestUtils;
+import top.kidhx.apidoc.bo.ExporterDefinition;
+import top.kidhx.apidoc.bo.MarkDownApi;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * reads archives back with the jdk zip and gzip readers
+ *
+ * @author HX
+ * @date 2022/2/18
+ */
+public class ArchiveDocExporterTest {
+
+    private static final String LONG_NAME = "GET  /" + Strings.repeat("nested/", 20) + "users";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void zipRoundTrip() throws Exception {
+        final File archive = export(ArchiveWriter.FORMAT_ZIP, docs());
+
+        final Map<String, String> entries = Maps.newLinkedHashMap();
+        try (ZipFile zipFile = new ZipFile(archive)) {
+            final Enumeration<? extends ZipEntry> zipEntries = zipFile.entries();
+            while (zipEntries.hasMoreElements()) {
+                final ZipEntry entry = zipEntries.nextElement();
+                try (InputStream in = zipFile.getInputStream(entry)) {
+                    entries.put(entry.getName(), new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        assertEntries(entries);
+    }
+
+    @Test
+    public void tarGzRoundTrip() throws Exception {
+        final File archive = export(ArchiveWriter.FORMAT_TAR_GZ, docs());
+
+        final Map<String, String> entries = Maps.newLinkedHashMap();
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(archive.toPath())))) {
+            String paxPath = null;
+            final byte[] header = new byte[512];
+            while (true) {
+                in.readFully(header);
+                if (header[0] == 0) {
+                    break;
+                }
+                final long size = Long.parseLong(new String(header, 124, 11, StandardCharsets.US_ASCII), 8);
+                final byte[] content = new byte[(int) size];
+                in.readFully(content);
+                in.readFully(new byte[(int) ((512 - size % 512) % 512)]);
+                if (header[156] == 'x') {
+                    final String record = new String(content, StandardCharsets.UTF_8);
+                    Assert.assertEquals(record.length(), Integer.parseInt(record.substring(0, record.indexOf(' '))));
+                    paxPath = record.substring(record.indexOf("path=") + 5, record.length() - 1);
+                    continue;
+                }
+                Assert.assertEquals('0', header[156]);
+                final String name = paxPath != null ? paxPath : new String(header, 0, 100, StandardCharsets.UTF_8).trim();
+                entries.put(name, new String(content, StandardCharsets.UTF_8));
+                paxPath = null;
+            }
+            in.readFully(header);
+            Assert.assertEquals(-1, in.read());
+        }
+        assertEntries(entries);
+    }
+
+    @Test
+    public void archiveDoesNotDependOnDocOrder() throws Exception {
+        for (String format : new String[]{ArchiveWriter.FORMAT_ZIP, ArchiveWriter.FORMAT_TAR_GZ}) {
+            final List<MarkDownApi> docs = docs();
+            final byte[] expected = Files.readAllBytes(export(format, docs).toPath());
+            Collections.reverse(docs);
+            Assert.assertArrayEquals(format, expected, Files.readAllBytes(export(format, docs).toPath()));
+        }
+    }
+
+    @Test
+    public void abortKeepsPreviousArchive() throws Exception {
+        final File archive = export(ArchiveWriter.FORMAT_ZIP, docs());
+        final byte[] previous = Files.readAllBytes(archive.toPath());
+
+        final StreamingDocExporter exporter = createExporter(archive.getParentFile(), ArchiveWriter.FORMAT_ZIP);
+        try (Writer writer = exporter.openApiDoc(new MarkDownApi().setName("half"))) {
+            writer.write("half rendered");
+        }
+        exporter.abortExport();
+        exporter.finishExport();
+
+        Assert.assertArrayEquals(previous, Files.readAllBytes(archive.toPath()));
+        Assert.assertArrayEquals(new String[]{archive.getName()}, archive.getParentFile().list());
+    }
+
+    @Test
+    public void invalidParametersFailWhenCreated() {
+        final ExporterEngine exporterEngine = new ExporterEngine(new SystemStreamLog());
+        for (Map<String, String> parameters : Lists.newArrayList(ImmutableMap.of("compressionLevel", "fast"),
+                ImmutableMap.of("compressionLevel", "10"), ImmutableMap.of("threads", "0"))) {
+            try {
+                exporterEngine.createExporter(new ExporterDefinition().setExporterName(ExporterEngine.ARCHIVE_EXPORTER_NAME).setParameters(parameters));
+                Assert.fail("invalid parameters accepted:" + parameters);
+            } catch (IllegalStateException | IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    private void assertEntries(Map<String, String> entries) {
+        Assert.assertEquals(Lists.newArrayList(LONG_NAME + ".md", "POST  /users.md", "same.md", "same(1).md", ArchiveDocExporter.INDEX_ENTRY_NAME),
+                Lists.newArrayList(entries.keySet()));
+        Assert.assertEquals("# long", entries.get(LONG_NAME + ".md"));
+        Assert.assertEquals("# 创建用户", entries.get("POST  /users.md"));
+        // docs of the same name are ordered by the md5 of their content
+        final boolean aFirst = DigestUtils.md5DigestAsHex("# same a".getBytes(StandardCharsets.UTF_8))
+                .compareTo(DigestUtils.md5DigestAsHex("# same b".getBytes(StandardCharsets.UTF_8))) < 0;
+        Assert.assertEquals(aFirst ? "# same a" : "# same b", entries.get("same.md"));
+        Assert.assertEquals(aFirst ? "# same b" : "# same a", entries.get("same(1).md"));
+        Assert.assertTrue(entries.get(ArchiveDocExporter.INDEX_ENTRY_NAME).contains("- [same](same(1).md)\n"));
+    }
+
+    private List<MarkDownApi> docs() {
+        return Lists.newArrayList(
+                new MarkDownApi().setName("same").setContent("# same b"),
+                new MarkDownApi().setName("POST  /users").setContent("# 创建用户"),
+                new MarkDownApi().setName("same").setContent("# same a"),
+                new MarkDownApi().setName(LONG_NAME).setContent("# long"));
+    }
+
+    private File export(String format, List<MarkDownApi> docs) throws IOException {
+        final File directory = new File(folder.getRoot(), format);
+        final StreamingDocExporter exporter = createExporter(directory, format);
+        // docs arrive from several render threads, like a partitioned export
+        final List<Thread> threads = Lists.newArrayList();
+        final List<Throwable> failures = Collections.synchronizedList(Lists.newArrayList());
+        for (MarkDownApi doc : docs) {
+            final Thread thread = new Thread(() -> {
+                try (Writer writer = exporter.openApiDoc(doc)) {
+                    writer.write(doc.getContent());
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        Assert.assertEquals(Collections.emptyList(), failures);
+        exporter.finishExport();
+        Assert.assertEquals(1, directory.list().length);
+        return new File(directory, "api-doc." + format);
+    }
+
+    private StreamingDocExporter createExporter(File directory, String format) {
+        return (StreamingDocExporter) new ExporterEngine(new SystemStreamLog()).createExporter(new ExporterDefinition()
+                .setExporterName(ExporterEngine.ARCHIVE_EXPORTER_NAME)
+                .setParameters(ImmutableMap.of("outputPath", directory.getAbsolutePath(), "format", format, "threads", "2")));
+    }
+}
@@ -0,0 +1,59 @@
+package top.kidhx.apidoc.sourcehandler;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import top.kidhx.apidoc.bo.Comment;
+import top.kidhx.apidoc.bo.MethodComment;
+import top.kidhx.apidoc.bo.SourceComment;
+
+import java.io.File;
+import java.nio.BufferUnderflowException;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+/**
+ * @author HX
+ * @date 2022/2/25
+ */
+public class CommentIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void missingReturnCommentStaysUnset() throws Exception {
+        final File file = write();
+
+        final SourceComment sourceComment = CommentIndex.open(file).find("top.kidhx.demo.UserController");
+        Assert.assertEquals("user apis", sourceComment.getClassComment());
+        Assert.assertNull(((MethodComment) sourceComment.getMethodComments().get("save")).getReturnComment());
+        Assert.assertEquals("user", ((MethodComment) sourceComment.getMethodComments().get("get")).getReturnComment().getValue());
+    }
+
+    @Test(expected = BufferUnderflowException.class)
+    public void truncatedRecordFails() throws Exception {
+        final File file = write();
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 4));
+
+        CommentIndex.open(file).find("top.kidhx.demo.UserController");
+    }
+
+    private File write() throws Exception {
+        final MethodComment save = new MethodComment();
+        save.setValue("save a user");
+        final MethodComment get = new MethodComment();
+        get.setValue("get a user");
+        get.setReturnComment(new Comment().setValue("user"));
+        final SourceComment sourceComment = new SourceComment().setClassComment("user apis");
+        sourceComment.getMethodComments().put("save", save);
+        sourceComment.getMethodComments().put("get", get);
+
+        final File file = new File(folder.getRoot(), "comments.idx");
+        CommentIndex.write(file, ImmutableMap.of("top.kidhx.demo.UserController", sourceComment));
+        return file;
+    }
+}